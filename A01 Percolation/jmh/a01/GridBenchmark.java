@@ -0,0 +1,149 @@
+package a01;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import a01.Percolation.Storage;
+
+/**
+ * JMH benchmarks on the percolation hot paths for every storage implementation:
+ * grid is Percolation over its union-find, packed is Percolation in PACKED storage and
+ * two-uf is the textbook TwoUnionFindPercolation. Every implementation opens the same
+ * shuffled order of sites for a given N. Each benchmark reports the time to work
+ * through a whole grid, so scores only compare across implementations at the same N.
+ * <ul>
+ * <li>open: opening every site.</li>
+ * <li>percolates: opening sites with a percolates check after each one until it percolates.</li>
+ * <li>isFull: asking every site once the system percolates.</li>
+ * </ul>
+ *
+ * @author Jeff Ostler and Kim Soto
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class GridBenchmark {
+	@Param({"100", "500", "1000", "2000", "4000"})
+	int N;
+
+	@Param({"grid", "packed", "two-uf"})
+	String impl;
+
+	private int[] order;
+	private Storage storage; //Null for two-uf.
+	private Percolation fullGrid; //Percolating grids for isFull, one of them null.
+	private TwoUnionFindPercolation fullTwoUF;
+
+	@Setup
+	public void setUp() {
+		order = shuffledSites(N, new SplittableRandom(N));
+		switch(impl) {
+		case "grid":
+			storage = Storage.UNION_FIND;
+			break;
+		case "packed":
+			storage = Storage.PACKED;
+			break;
+		case "two-uf":
+			storage = null;
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown implementation: " + impl);
+		}
+
+		if(storage != null) {
+			fullGrid = new Percolation(N, storage);
+			for(int k = 0; !fullGrid.percolates(); k++) {
+				fullGrid.open(order[k] / N, order[k] % N);
+			}
+		}
+		else {
+			fullTwoUF = new TwoUnionFindPercolation(N);
+			for(int k = 0; !fullTwoUF.percolates(); k++) {
+				fullTwoUF.open(order[k] / N, order[k] % N);
+			}
+		}
+	}
+
+	@Benchmark
+	public Object open() {
+		if(storage != null) {
+			Percolation p = new Percolation(N, storage);
+			for(int site : order) {
+				p.open(site / N, site % N);
+			}
+			return p;
+		}
+		TwoUnionFindPercolation p = new TwoUnionFindPercolation(N);
+		for(int site : order) {
+			p.open(site / N, site % N);
+		}
+		return p;
+	}
+
+	@Benchmark
+	public int percolates() {
+		int k = 0;
+		if(storage != null) {
+			Percolation p = new Percolation(N, storage);
+			while(!p.percolates()) {
+				p.open(order[k] / N, order[k] % N);
+				k++;
+			}
+			return k;
+		}
+		TwoUnionFindPercolation p = new TwoUnionFindPercolation(N);
+		while(!p.percolates()) {
+			p.open(order[k] / N, order[k] % N);
+			k++;
+		}
+		return k;
+	}
+
+	/**
+	 * Repeated invocations see the paths earlier ones compressed, which is the steady
+	 * state a visualiser polling isFull would see.
+	 */
+	@Benchmark
+	public void isFull(Blackhole bh) {
+		for(int i = 0; i < N; i++) {
+			for(int j = 0; j < N; j++) {
+				bh.consume(fullGrid != null ? fullGrid.isFull(i, j) : fullTwoUF.isFull(i, j));
+			}
+		}
+	}
+
+	/**
+	 * Fisher-Yates shuffle of the N*N site ids.
+	 */
+	private static int[] shuffledSites(int N, SplittableRandom rng) {
+		int[] order = new int[N * N];
+		for(int k = 0; k < order.length; k++) {
+			order[k] = k;
+		}
+		for(int k = order.length - 1; k > 0; k--) {
+			int r = rng.nextInt(k + 1);
+			int temp = order[k];
+			order[k] = order[r];
+			order[r] = temp;
+		}
+		return order;
+	}
+}
@@ -0,0 +1,44 @@
+package a01;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * JMH benchmark on one full PercolationStats trial on one thread, in every trial Mode.
+ * Each invocation runs a new seed, so the score averages over random grids rather than
+ * timing one grid again and again.
+ *
+ * @author Jeff Ostler and Kim Soto
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class StatsBenchmark {
+	@Param({"100", "500", "1000", "2000", "4000"})
+	int N;
+
+	@Param({"REJECTION", "SHUFFLED", "BISECTION"})
+	PercolationStats.Mode mode;
+
+	private long seed;
+
+	@Benchmark
+	public double trial() {
+		return new PercolationStats(N, 1, mode, 1, seed++).mean();
+	}
+}
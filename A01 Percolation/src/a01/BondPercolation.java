@@ -0,0 +1,107 @@
+package a01;
+
+/**
+ * Bond percolation on any Lattice: every site is present and bonds between neighbouring
+ * sites open one at a time. The system percolates once open bonds connect the top layer
+ * to the bottom layer. Bonds are named by their end points, or by their index in
+ * Lattice.bonds().
+ * 
+ * @author Jeff Ostler and Kim Soto
+ *
+ */
+public class BondPercolation {
+	private final Lattice lattice;
+	private final GridUnionFind uf;
+	private final int[] neighbours;
+	private final int[] bonds;
+	private boolean percolates;
+
+	/**
+	 * Creates a lattice with all bonds closed.
+	 * @param lattice site layout
+	 */
+	public BondPercolation(Lattice lattice) {
+		this.lattice = lattice;
+		uf = new GridUnionFind(lattice.sites());
+		neighbours = new int[lattice.maxDegree()];
+		bonds = lattice.bonds();
+		for(int site = 0; site < lattice.sites(); site++) {
+			uf.open(site);
+			int flags = 0;
+			if(lattice.isTop(site)) {
+				flags |= GridUnionFind.TOP;
+			}
+			if(lattice.isBottom(site)) {
+				flags |= GridUnionFind.BOTTOM;
+			}
+			if(flags != 0 && uf.mark(site, flags) == (GridUnionFind.TOP | GridUnionFind.BOTTOM)) {
+				percolates = true;
+			}
+		}
+	}
+
+	/**
+	 * Number of bonds in the lattice.
+	 * @return Bond count.
+	 */
+	public int bonds() {
+		return bonds.length / 2;
+	}
+
+	/**
+	 * Opens bond b of Lattice.bonds().
+	 * @param b bond index
+	 */
+	public void open(int b) {
+		if(b < 0 || b >= bonds()) 
+			throw new IndexOutOfBoundsException("Cannot open bond: index is out of range\nbonds " + bonds());
+		join(bonds[2 * b], bonds[2 * b + 1]);
+	}
+
+	/**
+	 * Opens the bond between neighbouring sites p and q.
+	 * @param p site id
+	 * @param q site id
+	 */
+	public void open(int p, int q) {
+		validate(p);
+		validate(q);
+		int degree = lattice.neighbours(p, neighbours);
+		for(int k = 0; k < degree; k++) {
+			if(neighbours[k] == q) {
+				join(p, q);
+				return;
+			}
+		}
+		throw new IllegalArgumentException("Sites " + p + " and " + q + " are not neighbours");
+	}
+
+	/**
+	 * Checks whether site is connected to the top layer through open bonds.
+	 * @param site site id
+	 * @return True if site is full, false otherwise.
+	 */
+	public boolean isFull(int site) {
+		validate(site);
+		return (uf.flags(site) & GridUnionFind.TOP) != 0;
+	}
+
+	/**
+	 * Decides whether the system percolates.
+	 * @return True if system percolates, false otherwise.
+	 */
+	public boolean percolates() {
+		return percolates;
+	}
+
+	private void join(int p, int q) {
+		if(uf.union(p, q) == (GridUnionFind.TOP | GridUnionFind.BOTTOM)) {
+			percolates = true;
+		}
+	}
+
+	private void validate(int site) {
+		if(site < 0 || site >= lattice.sites()) 
+			throw new IndexOutOfBoundsException("Site index is out of range\nsites " + lattice.sites());
+	}
+}
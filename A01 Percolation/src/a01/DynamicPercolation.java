@@ -0,0 +1,232 @@
+package a01;
+
+import java.util.Arrays;
+
+/**
+ * Percolation on an N by N grid where sites can be closed again, answered offline.
+ * Record a sequence of open, close and percolates queries, then call solve to get
+ * every answer at once.
+ * <p>
+ * Each site is open over a set of query intervals, and the bond between two
+ * neighbouring sites exists while both are open. Those intervals are laid on a
+ * segment tree over the queries, and a depth-first walk of the tree applies each
+ * node's sites and bonds to a RollbackUnionFind, answers the queries at the leaves, and
+ * rolls back on the way up. Every interval lands on O(log Q) nodes and each union costs
+ * O(log N), so a whole sequence is answered in O((N^2 + M) log Q log N) for M opens
+ * and closes and Q queries, rather than rebuilding the grid after every close.
+ * 
+ * @author Jeff Ostler and Kim Soto
+ *
+ */
+public class DynamicPercolation {
+	private final int size;
+	private final int[] openedAt; //Query count when each site opened, -1 if closed.
+
+	//Recorded intervals, as the item's sites and its [from, to) range of queries.
+	//A site item has second == -1, a bond item joins first and second.
+	private int[] first = new int[16];
+	private int[] second = new int[16];
+	private int[] from = new int[16];
+	private int[] to = new int[16];
+	private int items;
+	private int queries;
+	private boolean solved;
+
+	/**
+	 * Creates NbyN grid, with all sites blocked.
+	 * @param N
+	 */
+	public DynamicPercolation(int N) {
+		if(N <= 0) throw new IndexOutOfBoundsException(N + "is less than 0");
+		size = N;
+		openedAt = new int[N * N];
+		Arrays.fill(openedAt, -1);
+	}
+
+	/**
+	 * Opens site (row i, column j) if it is not open already.
+	 * @param i
+	 * @param j
+	 */
+	public void open(int i, int j) {
+		int site = validate(i, j, "Cannot open site");
+		if(openedAt[site] < 0) {
+			openedAt[site] = queries;
+		}
+	}
+
+	/**
+	 * Closes site (row i, column j) if it is open.
+	 * @param i
+	 * @param j
+	 */
+	public void close(int i, int j) {
+		int site = validate(i, j, "Cannot close site");
+		if(openedAt[site] >= 0) {
+			retire(site, i, j);
+		}
+	}
+
+	/**
+	 * Checks whether site (row i, column j) is open at this point of the sequence.
+	 * @param i
+	 * @param j
+	 * @return True if site is open, false otherwise.
+	 */
+	public boolean isOpen(int i, int j) {
+		return openedAt[validate(i, j, "Cannot check if site is open")] >= 0;
+	}
+
+	/**
+	 * Asks whether the system percolates at this point of the sequence.
+	 * @return Index of the answer in the array returned by solve.
+	 */
+	public int percolates() {
+		checkNotSolved();
+		return queries++;
+	}
+
+	/**
+	 * Answers every recorded percolates query. The recording cannot be extended afterwards.
+	 * @return For each query, whether the system percolated at that point.
+	 */
+	public boolean[] solve() {
+		checkNotSolved();
+		for(int site = 0; site < openedAt.length; site++) {
+			if(openedAt[site] >= 0) {
+				retire(site, site / size, site % size);
+			}
+		}
+		solved = true;
+
+		boolean[] answers = new boolean[queries];
+		if(queries == 0) {
+			return answers;
+		}
+		//Segment tree over queries, each node listing its items as a linked list.
+		int leaves = Integer.highestOneBit(Math.max(1, queries - 1)) << 1;
+		int[] head = new int[2 * leaves];
+		Arrays.fill(head, -1);
+		int[] node = new int[16];
+		int[] next = new int[16];
+		int entries = 0;
+		for(int item = 0; item < items; item++) {
+			int lo = from[item] + leaves;
+			int hi = to[item] + leaves;
+			while(lo < hi) {
+				if((lo & 1) == 1) {
+					if(entries == node.length) {
+						node = Arrays.copyOf(node, 2 * entries);
+						next = Arrays.copyOf(next, 2 * entries);
+					}
+					node[entries] = item;
+					next[entries] = head[lo];
+					head[lo++] = entries++;
+				}
+				if((hi & 1) == 1) {
+					if(entries == node.length) {
+						node = Arrays.copyOf(node, 2 * entries);
+						next = Arrays.copyOf(next, 2 * entries);
+					}
+					node[entries] = item;
+					next[entries] = head[--hi];
+					head[hi] = entries++;
+				}
+				lo >>>= 1;
+				hi >>>= 1;
+			}
+		}
+
+		RollbackUnionFind uf = new RollbackUnionFind(size * size, true);
+		walk(1, 0, leaves, uf, head, node, next, answers);
+		return answers;
+	}
+
+	/**
+	 * Applies a node's items, recurses into its children or answers its query, then undoes
+	 * the node's changes.
+	 */
+	private void walk(int t, int lo, int hi, RollbackUnionFind uf, int[] head, int[] node, int[] next,
+			boolean[] answers) {
+		if(lo >= queries) {
+			return;
+		}
+		int checkpoint = uf.checkpoint();
+		for(int e = head[t]; e >= 0; e = next[e]) {
+			int item = node[e];
+			if(second[item] < 0) {
+				int flags = 0;
+				if(first[item] < size) {
+					flags |= GridUnionFind.TOP;
+				}
+				if(first[item] >= size * (size - 1)) {
+					flags |= GridUnionFind.BOTTOM;
+				}
+				if(flags != 0) {
+					uf.mark(first[item], flags);
+				}
+			}
+			else {
+				uf.union(first[item], second[item]);
+			}
+		}
+		if(hi - lo == 1) {
+			answers[lo] = uf.spanning() > 0;
+		}
+		else {
+			int mid = (lo + hi) >>> 1;
+			walk(2 * t, lo, mid, uf, head, node, next, answers);
+			walk(2 * t + 1, mid, hi, uf, head, node, next, answers);
+		}
+		uf.rollback(checkpoint);
+	}
+
+	/**
+	 * Records the open interval of a site that is closing, and of its bonds to the open
+	 * neighbours that remain.
+	 */
+	private void retire(int site, int i, int j) {
+		int start = openedAt[site];
+		openedAt[site] = -1;
+		record(site, -1, start);
+		if(i != 0) retireBond(site, site - size, start);
+		if(i != size - 1) retireBond(site, site + size, start);
+		if(j != 0) retireBond(site, site - 1, start);
+		if(j != size - 1) retireBond(site, site + 1, start);
+	}
+
+	private void retireBond(int site, int neighbour, int start) {
+		if(openedAt[neighbour] >= 0) {
+			record(site, neighbour, Math.max(start, openedAt[neighbour]));
+		}
+	}
+
+	private void record(int a, int b, int start) {
+		if(start == queries) {
+			return; //No query saw it.
+		}
+		if(items == first.length) {
+			first = Arrays.copyOf(first, 2 * items);
+			second = Arrays.copyOf(second, 2 * items);
+			from = Arrays.copyOf(from, 2 * items);
+			to = Arrays.copyOf(to, 2 * items);
+		}
+		first[items] = a;
+		second[items] = b;
+		from[items] = start;
+		to[items] = queries;
+		items++;
+	}
+
+	private void checkNotSolved() {
+		if(solved)
+			throw new IllegalStateException("Sequence has already been solved");
+	}
+
+	private int validate(int i, int j, String action) {
+		checkNotSolved();
+		if(i < 0 || i >= size || j < 0 || j >= size) 
+			throw new IndexOutOfBoundsException(action + ": index is out of range\nsize " + size);
+		return size * i + j;
+	}
+}
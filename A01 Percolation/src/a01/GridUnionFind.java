@@ -0,0 +1,214 @@
+package a01;
+
+import java.util.Arrays;
+
+/**
+ * Weighted union-find over the sites of a percolation grid, stored in a single int array.
+ * A non-negative entry is the parent of an open site. A negative entry marks a root
+ * and holds the complement of its component size shifted left by two, with the low two
+ * bits flagging whether the component touches the top or bottom row. A blocked site
+ * (size 0, no flags) is -1. Finds use path halving.
+ * <p>
+ * Cluster aggregates are kept up to date on every open, mark and union: the number of
+ * components, the largest component size, the number of components touching both the
+ * top and bottom, and optionally a histogram of component sizes.
+ *
+ * @author Kim Soto and Jeff Ostler
+ *
+ */
+final class GridUnionFind {
+	static final int TOP = 1;
+	static final int BOTTOM = 2;
+	private static final int FLAGS = TOP | BOTTOM;
+	private static final int BLOCKED = ~0;
+
+	private final int[] id;
+	private final int[] sizeCounts; //Components of each size, null if not tracked.
+	private int components;
+	private int largest;
+	private int spanning;
+
+	/**
+	 * Creates n sites, all blocked, without a size histogram.
+	 * @param n number of sites
+	 */
+	GridUnionFind(int n) {
+		this(n, false);
+	}
+
+	/**
+	 * Creates n sites, all blocked.
+	 * @param n number of sites
+	 * @param histogram whether to track how many components there are of each size
+	 */
+	GridUnionFind(int n, boolean histogram) {
+		id = new int[n];
+		Arrays.fill(id, BLOCKED);
+		sizeCounts = histogram ? new int[n + 1] : null;
+	}
+
+	/**
+	 * Checks whether site p is open.
+	 * @param p site id
+	 * @return True if site is open, false otherwise.
+	 */
+	boolean isOpen(int p) {
+		return id[p] != BLOCKED;
+	}
+
+	/**
+	 * Opens site p as a component of its own. Does nothing if it is already open.
+	 * @param p site id
+	 */
+	void open(int p) {
+		if(id[p] == BLOCKED) {
+			id[p] = ~(1 << 2);
+			components++;
+			largest = Math.max(largest, 1);
+			if(sizeCounts != null) {
+				sizeCounts[1]++;
+			}
+		}
+	}
+
+	/**
+	 * Returns the root of the component containing p, halving the path on the way up.
+	 * @param p site id
+	 * @return Root site id.
+	 */
+	int find(int p) {
+		int parent = id[p];
+		while(parent >= 0) {
+			int grandparent = id[parent];
+			if(grandparent < 0) {
+				return parent;
+			}
+			id[p] = grandparent;
+			p = grandparent;
+			parent = id[p];
+		}
+		return p;
+	}
+
+	/**
+	 * Checks whether p and q are in the same component.
+	 * @param p site id
+	 * @param q site id
+	 * @return True if connected, false otherwise.
+	 */
+	boolean connected(int p, int q) {
+		return find(p) == find(q);
+	}
+
+	/**
+	 * Merges the components containing the open sites p and q, smaller under larger.
+	 * The merged root keeps the flags of both components.
+	 * @param p site id
+	 * @param q site id
+	 * @return Flags of the merged component.
+	 */
+	int union(int p, int q) {
+		int rootP = find(p);
+		int rootQ = find(q);
+		int metaP = ~id[rootP];
+		if(rootP == rootQ) {
+			return metaP & FLAGS;
+		}
+		int metaQ = ~id[rootQ];
+		int sizeP = metaP >>> 2;
+		int sizeQ = metaQ >>> 2;
+		int merged = (sizeP + sizeQ) << 2 | ((metaP | metaQ) & FLAGS);
+		components--;
+		largest = Math.max(largest, sizeP + sizeQ);
+		spanning += spans(merged) - spans(metaP) - spans(metaQ);
+		if(sizeCounts != null) {
+			sizeCounts[sizeP]--;
+			sizeCounts[sizeQ]--;
+			sizeCounts[sizeP + sizeQ]++;
+		}
+		if(sizeP < sizeQ) {
+			id[rootP] = rootQ;
+			id[rootQ] = ~merged;
+		}
+		else {
+			id[rootQ] = rootP;
+			id[rootP] = ~merged;
+		}
+		return merged & FLAGS;
+	}
+
+	/**
+	 * Adds flags to the component containing the open site p.
+	 * @param p site id
+	 * @param flags TOP, BOTTOM or both
+	 * @return Flags of the component after marking.
+	 */
+	int mark(int p, int flags) {
+		int root = find(p);
+		int before = ~id[root];
+		id[root] &= ~flags;
+		spanning += spans(~id[root]) - spans(before);
+		return ~id[root] & FLAGS;
+	}
+
+	/**
+	 * Returns the flags of the component containing p.
+	 * @param p site id
+	 * @return TOP and BOTTOM bits, 0 if p is blocked.
+	 */
+	int flags(int p) {
+		return ~id[find(p)] & FLAGS;
+	}
+
+	/**
+	 * Returns the number of sites in the component containing p.
+	 * @param p site id
+	 * @return Component size, 0 if p is blocked.
+	 */
+	int size(int p) {
+		return ~id[find(p)] >>> 2;
+	}
+
+	/**
+	 * Number of open components.
+	 * @return Component count.
+	 */
+	int components() {
+		return components;
+	}
+
+	/**
+	 * Size of the largest component.
+	 * @return Largest component size, 0 if nothing is open.
+	 */
+	int largest() {
+		return largest;
+	}
+
+	/**
+	 * Number of components touching both the top and the bottom.
+	 * @return Spanning component count.
+	 */
+	int spanning() {
+		return spanning;
+	}
+
+	/**
+	 * Number of components with exactly s sites.
+	 * @param s component size
+	 * @return Component count of that size.
+	 */
+	int sizeCount(int s) {
+		if(sizeCounts == null)
+			throw new IllegalStateException("Component size histogram is not tracked");
+		return s < 1 || s >= sizeCounts.length ? 0 : sizeCounts[s];
+	}
+
+	/**
+	 * 1 if a root entry's flags say it touches both the top and bottom, 0 otherwise.
+	 * @param meta complement of a root entry
+	 */
+	private static int spans(int meta) {
+		return (meta & FLAGS) == FLAGS ? 1 : 0;
+	}
+}
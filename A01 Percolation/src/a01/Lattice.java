@@ -0,0 +1,295 @@
+package a01;
+
+import java.util.Arrays;
+
+/**
+ * Site layout and neighbour structure of a percolation lattice. Sites are numbered
+ * row-major with the first coordinate running from the top layer to the bottom layer.
+ * <p>
+ * Neighbours come from precomputed offset tables. A site's table is picked by which
+ * faces of the grid it lies on and by the parity of its coordinates, so enumerating
+ * neighbours is a table lookup and a loop of additions with no per-direction branches.
+ * Periodic lattices wrap around every axis except the top-to-bottom one.
+ * 
+ * @author Jeff Ostler and Kim Soto
+ *
+ */
+public final class Lattice {
+	private static final int MAX_ARRAY = Integer.MAX_VALUE - 8; //Largest array every VM allocates.
+	private static final int[][][] SQUARE = {
+		{{-1, 0}, {1, 0}, {0, -1}, {0, 1}},
+		{{-1, 0}, {1, 0}, {0, -1}, {0, 1}}
+	};
+	private static final int[][][] TRIANGULAR = {
+		{{-1, 0}, {1, 0}, {0, -1}, {0, 1}, {-1, 1}, {1, -1}},
+		{{-1, 0}, {1, 0}, {0, -1}, {0, 1}, {-1, 1}, {1, -1}}
+	};
+	//Brick-wall honeycomb: every site links left, right, and down or up by parity.
+	private static final int[][][] HEXAGONAL = {
+		{{0, -1}, {0, 1}, {1, 0}},
+		{{0, -1}, {0, 1}, {-1, 0}}
+	};
+	private static final int[][][] CUBIC = {
+		{{-1, 0, 0}, {1, 0, 0}, {0, -1, 0}, {0, 1, 0}, {0, 0, -1}, {0, 0, 1}},
+		{{-1, 0, 0}, {1, 0, 0}, {0, -1, 0}, {0, 1, 0}, {0, 0, -1}, {0, 0, 1}}
+	};
+
+	private final int size;
+	private final int dims;
+	private final int sites;
+	private final int layer; //Sites per top-to-bottom layer.
+	private final int maxDegree;
+	private final int[][] tables; //Neighbour offsets per site class.
+
+	/**
+	 * Square lattice, four neighbours per site.
+	 * @param N size of grid
+	 * @param periodic whether left and right edges wrap
+	 * @return N by N square lattice.
+	 */
+	public static Lattice square(int N, boolean periodic) {
+		return new Lattice(N, 2, periodic, SQUARE);
+	}
+
+	/**
+	 * Triangular lattice drawn on a square grid, six neighbours per site.
+	 * @param N size of grid
+	 * @param periodic whether left and right edges wrap
+	 * @return N by N triangular lattice.
+	 */
+	public static Lattice triangular(int N, boolean periodic) {
+		return new Lattice(N, 2, periodic, TRIANGULAR);
+	}
+
+	/**
+	 * Hexagonal (honeycomb) lattice drawn as a brick wall, three neighbours per site.
+	 * @param N size of grid, even if periodic
+	 * @param periodic whether left and right edges wrap
+	 * @return N by N hexagonal lattice.
+	 */
+	public static Lattice hexagonal(int N, boolean periodic) {
+		if(periodic && N % 2 != 0)
+			throw new IllegalArgumentException("Periodic hexagonal lattice needs an even size: " + N);
+		return new Lattice(N, 2, periodic, HEXAGONAL);
+	}
+
+	/**
+	 * Simple cubic lattice, six neighbours per site.
+	 * @param N size of grid along every axis
+	 * @param periodic whether the four side faces wrap
+	 * @return N by N by N cubic lattice.
+	 */
+	public static Lattice cubic(int N, boolean periodic) {
+		return new Lattice(N, 3, periodic, CUBIC);
+	}
+
+	/**
+	 * Builds the offset table of every site class from the moves of each parity.
+	 * @param N size of grid
+	 * @param dims number of axes
+	 * @param periodic whether axes other than the first wrap
+	 * @param moves [parity][neighbour][axis] coordinate steps of -1, 0 or 1
+	 */
+	private Lattice(int N, int dims, boolean periodic, int[][][] moves) {
+		if(N <= 0) throw new IndexOutOfBoundsException(N + "is less than 0");
+		int[] stride = new int[dims];
+		long total = 1;
+		for(int d = dims - 1; d >= 0; d--) {
+			stride[d] = (int) total;
+			total *= N;
+		}
+		if(total >= 1 << 29)
+			throw new IllegalArgumentException("Too many sites: " + total);
+		size = N;
+		this.dims = dims;
+		sites = (int) total;
+		layer = stride[0];
+
+		//Class bits: for each axis "on first face" and "on last face", then parity.
+		tables = new int[1 << (2 * dims + 1)][];
+		int degree = 0;
+		for(int cls = 0; cls < tables.length; cls++) {
+			int[][] classMoves = moves[cls >>> (2 * dims)];
+			int[] offsets = new int[classMoves.length];
+			int count = 0;
+			for(int[] move : classMoves) {
+				int offset = 0;
+				boolean inside = true;
+				for(int d = 0; d < dims; d++) {
+					boolean first = (cls >>> (2 * d) & 1) != 0;
+					boolean last = (cls >>> (2 * d + 1) & 1) != 0;
+					int step = move[d];
+					boolean wraps = (step < 0 && first) || (step > 0 && last);
+					if(wraps && !(periodic && d > 0)) {
+						inside = false;
+					}
+					offset += (wraps ? -step * (N - 1) : step) * stride[d];
+				}
+				if(inside) {
+					offsets[count++] = offset;
+				}
+			}
+			tables[cls] = Arrays.copyOf(offsets, count);
+			degree = Math.max(degree, count);
+		}
+		maxDegree = degree;
+	}
+
+	/**
+	 * Number of sites in the lattice.
+	 * @return Site count.
+	 */
+	public int sites() {
+		return sites;
+	}
+
+	/**
+	 * Size along each axis.
+	 * @return N.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Most neighbours any site can have.
+	 * @return Largest neighbour count.
+	 */
+	public int maxDegree() {
+		return maxDegree;
+	}
+
+	/**
+	 * Site id of (row i, column j) in a two dimensional lattice.
+	 * @param i row
+	 * @param j column
+	 * @return Site id.
+	 */
+	public int site(int i, int j) {
+		return i * size + j;
+	}
+
+	/**
+	 * Site id of (layer i, row j, column k) in a cubic lattice.
+	 * @param i layer, 0 is the top
+	 * @param j row
+	 * @param k column
+	 * @return Site id.
+	 */
+	public int site(int i, int j, int k) {
+		return (i * size + j) * size + k;
+	}
+
+	/**
+	 * Checks whether site is in the top layer.
+	 * @param site site id
+	 * @return True if site is on the top.
+	 */
+	public boolean isTop(int site) {
+		return site < layer;
+	}
+
+	/**
+	 * Checks whether site is in the bottom layer.
+	 * @param site site id
+	 * @return True if site is on the bottom.
+	 */
+	public boolean isBottom(int site) {
+		return site >= sites - layer;
+	}
+
+	/**
+	 * Writes the neighbours of site into out.
+	 * @param site site id
+	 * @param out buffer of at least maxDegree() entries
+	 * @return Number of neighbours written.
+	 */
+	public int neighbours(int site, int[] out) {
+		int[] table = tables[classOf(site)];
+		for(int k = 0; k < table.length; k++) {
+			out[k] = site + table[k];
+		}
+		return table.length;
+	}
+
+	/**
+	 * Lists every bond once as a pair of sites, the lower id first. At most
+	 * sites * maxDegree entries are needed, so that many are filled in one walk and
+	 * trimmed. If that bound does not fit in an array, the sites clear of every face,
+	 * which all have the full degree of their parity, give a lower bound that rejects
+	 * large lattices at once; otherwise the bonds are counted exactly first.
+	 * @return Array of 2B site ids, bond b joining entries 2b and 2b+1.
+	 * @throws IllegalArgumentException if 2B does not fit in an array
+	 */
+	public int[] bonds() {
+		long entries = (long) sites * maxDegree;
+		if(entries > MAX_ARRAY) {
+			long interior = 1;
+			for(int d = 0; d < dims; d++) {
+				interior *= Math.max(0, size - 2);
+			}
+			int degree = Math.min(tables[0].length, tables[1 << (2 * dims)].length);
+			if(interior * degree > MAX_ARRAY)
+				throw new IllegalArgumentException("Too many bonds: at least " + interior * degree / 2);
+			entries = 2 * listBonds(null);
+			if(entries > MAX_ARRAY)
+				throw new IllegalArgumentException("Too many bonds: " + entries / 2);
+		}
+		int[] bonds = new int[(int) entries];
+		int count = (int) (2 * listBonds(bonds));
+		return count == bonds.length ? bonds : Arrays.copyOf(bonds, count);
+	}
+
+	/**
+	 * Walks every bond once, lower id first.
+	 * @param out array to write the pairs of sites into, or null to only count them
+	 * @return Number of bonds.
+	 */
+	private long listBonds(int[] out) {
+		int[] buffer = new int[maxDegree];
+		long count = 0;
+		for(int p = 0; p < sites; p++) {
+			int degree = neighbours(p, buffer);
+			for(int k = 0; k < degree; k++) {
+				int q = buffer[k];
+				if(q > p && !repeats(buffer, k)) {
+					if(out != null) {
+						out[(int) (2 * count)] = p;
+						out[(int) (2 * count + 1)] = q;
+					}
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Checks whether buffer[k] already appeared before k, which happens when a small
+	 * periodic lattice wraps onto the same neighbour from both sides.
+	 */
+	private static boolean repeats(int[] buffer, int k) {
+		for(int m = 0; m < k; m++) {
+			if(buffer[m] == buffer[k]) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Face bits of every axis plus coordinate parity, the index of the site's offset table.
+	 * @param site site id
+	 * @return Class index.
+	 */
+	private int classOf(int site) {
+		int cls = 0;
+		int sum = 0;
+		int rest = site;
+		for(int d = dims - 1; d >= 0; d--) {
+			int c = rest % size;
+			rest /= size;
+			sum += c;
+			cls |= (c == 0 ? 1 : 0) << (2 * d) | (c == size - 1 ? 2 : 0) << (2 * d);
+		}
+		return cls | (sum & 1) << (2 * dims);
+	}
+}
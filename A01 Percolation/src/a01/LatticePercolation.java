@@ -0,0 +1,108 @@
+package a01;
+
+/**
+ * Site percolation on any Lattice. Like Percolation, component roots carry top and
+ * bottom flags, so there is no backwash and percolates is a field read.
+ * 
+ * @author Jeff Ostler and Kim Soto
+ *
+ */
+public class LatticePercolation {
+	private final Lattice lattice;
+	private final GridUnionFind uf;
+	private final int[] neighbours;
+	private boolean percolates;
+	private int openSites;
+
+	/**
+	 * Creates a lattice with all sites blocked.
+	 * @param lattice site layout
+	 */
+	public LatticePercolation(Lattice lattice) {
+		this.lattice = lattice;
+		uf = new GridUnionFind(lattice.sites());
+		neighbours = new int[lattice.maxDegree()];
+	}
+
+	/**
+	 * Opens site if it is not open already.
+	 * @param site site id
+	 */
+	public void open(int site) {
+		validate(site, "Cannot open site");
+		if(uf.isOpen(site)) {
+			return;
+		}
+		openSites++;
+		uf.open(site);
+		int flags = 0;
+		if(lattice.isTop(site)) {
+			flags |= GridUnionFind.TOP;
+		}
+		if(lattice.isBottom(site)) {
+			flags |= GridUnionFind.BOTTOM;
+		}
+		if(flags != 0) {
+			flags = uf.mark(site, flags);
+		}
+		int degree = lattice.neighbours(site, neighbours);
+		for(int k = 0; k < degree; k++) {
+			if(uf.isOpen(neighbours[k])) {
+				flags = uf.union(neighbours[k], site);
+			}
+		}
+		//The last union holds the flags of the whole merged component.
+		if(flags == (GridUnionFind.TOP | GridUnionFind.BOTTOM)) {
+			percolates = true;
+		}
+	}
+
+	/**
+	 * Checks whether site is open.
+	 * @param site site id
+	 * @return True if site is open, false otherwise.
+	 */
+	public boolean isOpen(int site) {
+		validate(site, "Cannot check if site is open");
+		return uf.isOpen(site);
+	}
+
+	/**
+	 * Checks whether site is connected to the top layer through open sites.
+	 * @param site site id
+	 * @return True if site is full, false otherwise.
+	 */
+	public boolean isFull(int site) {
+		validate(site, "Cannot check if site is full");
+		return (uf.flags(site) & GridUnionFind.TOP) != 0;
+	}
+
+	/**
+	 * Decides whether the system percolates.
+	 * @return True if system percolates, false otherwise.
+	 */
+	public boolean percolates() {
+		return percolates;
+	}
+
+	/**
+	 * Number of open sites.
+	 * @return Open site count.
+	 */
+	public int numberOfOpenSites() {
+		return openSites;
+	}
+
+	/**
+	 * The layout this system percolates on.
+	 * @return Lattice.
+	 */
+	public Lattice lattice() {
+		return lattice;
+	}
+
+	private void validate(int site, String action) {
+		if(site < 0 || site >= lattice.sites()) 
+			throw new IndexOutOfBoundsException(action + ": index is out of range\nsites " + lattice.sites());
+	}
+}
@@ -1,33 +1,79 @@
 package a01;
 
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
-
+import java.util.Arrays;
 
 /**
  * TODO: Models a percolation system using an N by N grid of sites.
+ * Sites and their connections live in a single GridUnionFind array. Instead of virtual
+ * top and bottom sites, each component root records whether it touches the top or bottom
+ * row, so isFull and percolates never see backwash and cost one find at most.
+ * Cluster statistics are maintained by the union-find as sites open, so querying them
+ * costs O(1) instead of a scan of the grid.
+ * 
+ * PACKED storage drops the union-find for two SiteBitSets, open and full, at two bits per
+ * site, so a 10^4 by 10^4 grid takes 25MB instead of 400MB. Opening a site next to a full
+ * one floods the newly reachable sites a run at a time; every site fills once, so a
+ * whole opening sequence still costs O(N^2) word operations. Cluster statistics are not
+ * available in this mode.
  * 
  * @author Jeff Ostler and Kim Soto
  *
  */
 public class Percolation {
-	private boolean[][] grid;
+
+	/**
+	 * How the grid stores its sites.
+	 */
+	public enum Storage {
+		/** One GridUnionFind word per site, with cluster statistics. */
+		UNION_FIND,
+		/** Open and full bits packed 64 sites to a long, without cluster statistics. */
+		PACKED
+	}
+
 	private int size;
-	private int top; //Virtual top.
-	private int bottom; //Virtual bottom.
+	private boolean percolates;
     private int openSites;
-	private WeightedQuickUnionUF wqu; 
+	private GridUnionFind uf; //Null in PACKED storage.
+	private SiteBitSet open; //Null unless in PACKED storage, like full and stack.
+	private SiteBitSet full;
+	private int[] stack;
 
 	/**
 	 * Creates NbyN grid, with all sites blocked.
 	 * @param N
 	 */
 	public Percolation(int N) {
+		this(N, false);
+	}
+
+	/**
+	 * Creates NbyN grid, with all sites blocked.
+	 * @param N
+	 * @param sizeHistogram whether to track clusterSizeCount, at 4 extra bytes per site
+	 */
+	public Percolation(int N, boolean sizeHistogram) {
 		if(N <= 0) throw new IndexOutOfBoundsException(N + "is less than 0");
-		grid = new boolean[N][N];
 		size = N;
-		top = size * size + 1;
-		bottom = top + 1;
-		wqu = new WeightedQuickUnionUF(bottom + 1);
+		uf = new GridUnionFind(size * size, sizeHistogram);
+	}
+
+	/**
+	 * Creates NbyN grid, with all sites blocked.
+	 * @param N
+	 * @param storage UNION_FIND as Percolation(N), or PACKED for two bits per site
+	 */
+	public Percolation(int N, Storage storage) {
+		if(N <= 0) throw new IndexOutOfBoundsException(N + "is less than 0");
+		size = N;
+		if(storage == Storage.PACKED) {
+			open = new SiteBitSet(size);
+			full = new SiteBitSet(size);
+			stack = new int[Math.max(16, size)];
+		}
+		else {
+			uf = new GridUnionFind(size * size, false);
+		}
 	}
 	
 	/**
@@ -36,53 +82,189 @@ public class Percolation {
 	 * @param j
 	 */
 	public void open(int i, int j) {
-		if((i < 0 || i >= size) || ((i < 0 || i >= size))) 
-			throw new IndexOutOfBoundsException("Cannot open site: index is out of range\nsize: " + size);
-		
-		// Open site (row i, column j) if it is not open already.
-		//1) Validate i and j.
-		wqu.find(i);
-		//2) Mark the site as open.
-		if(!isOpen(i, j)) {			
-			openSites++;
-			grid[i][j] = true;
-			//Connect virtual top to actual top.
-			if(i == 0) {
-				wqu.union(getSite(i, j), top);
+		validate(i, j, "Cannot open site");
+		openSite(getSite(i, j), i, j);
+	}
+
+	/**
+	 * Opens every site in the array, giving the same result as calling open on each in
+	 * order. The whole batch is validated before anything opens, then each site goes
+	 * straight to the union-find without a per-call bounds check.
+	 * @param sites row-major site ids, row * N + column
+	 */
+	public void open(int[] sites) {
+		open(sites, 0, sites.length);
+	}
+
+	/**
+	 * Opens sites[from] up to sites[to - 1], giving the same result as calling open on
+	 * each in order.
+	 * @param sites row-major site ids, row * N + column
+	 * @param from first index to open
+	 * @param to index after the last one to open
+	 */
+	public void open(int[] sites, int from, int to) {
+		if(from < 0 || to > sites.length || from > to)
+			throw new IndexOutOfBoundsException("Cannot open sites: range " + from + " to " + to + " of " + sites.length);
+		int limit = size * size;
+		for(int k = from; k < to; k++) {
+			if(sites[k] < 0 || sites[k] >= limit)
+				throw new IndexOutOfBoundsException("Cannot open site " + sites[k] + ": index is out of range\nsize " + size);
+		}
+		for(int k = from; k < to; k++) {
+			int i = sites[k] / size;
+			openSite(sites[k], i, sites[k] - i * size);
+		}
+	}
+
+	/**
+	 * Opens every site of row i whose bit is set, column j being bit j % 64 of bits[j / 64].
+	 * Set bits are visited a word at a time, skipping empty stretches of the row.
+	 * @param i row
+	 * @param bits columns to open, at least (N + 63) / 64 words
+	 */
+	public void openRow(int i, long[] bits) {
+		int words = (size + 63) >>> 6;
+		if(i < 0 || i >= size || bits.length < words)
+			throw new IndexOutOfBoundsException("Cannot open row: index is out of range\nsize " + size);
+		if((size & 63) != 0 && bits[words - 1] >>> (size & 63) != 0)
+			throw new IndexOutOfBoundsException("Cannot open row: columns past N are set\nsize " + size);
+		for(int w = 0; w < words; w++) {
+			for(long word = bits[w]; word != 0; word &= word - 1) {
+				int j = (w << 6) + Long.numberOfTrailingZeros(word);
+				openSite(getSite(i, j), i, j);
 			}
+		}
+	}
+
+	/**
+	 * Opens a site that is known to be on the grid.
+	 * @param site site id
+	 * @param i row of site
+	 * @param j column of site
+	 */
+	private void openSite(int site, int i, int j) {
+		if(uf == null) {
+			openPacked(site, i, j);
+			return;
+		}
+		if(uf.isOpen(site)) {
+			return;
+		}
+		openSites++;
+		uf.open(site);
+		//Flag sites on the top and bottom rows.
+		int flags = 0;
+		if(i == 0) {
+			flags |= GridUnionFind.TOP;
+		}
+		if(i == size - 1) {
+			flags |= GridUnionFind.BOTTOM;
+		}
+		if(flags != 0) {
+			flags = uf.mark(site, flags);
+		}
 		//Fill the open sites.
 		//If not top then fill above.
-		if(i != 0) {
-			if(isOpen(i-1,j)) {
-				wqu.union(getSite(i-1,j), getSite(i,j));
-			}				
+		if(i != 0 && uf.isOpen(site - size)) {
+			flags = uf.union(site - size, site);
 		}
 		//If not bottom then fill below.
-		if(i != size-1) {
-			if(isOpen(i+1,j)) {
-				wqu.union(getSite(i+1,j), getSite(i,j));				
-			}
+		if(i != size - 1 && uf.isOpen(site + size)) {
+			flags = uf.union(site + size, site);
 		}
 		//If not left side then fill left.
-		if(j != 0) {
-			if(isOpen(i,j-1)) {
-				wqu.union(getSite(i,j-1), getSite(i,j));
-			}	
+		if(j != 0 && uf.isOpen(site - 1)) {
+			flags = uf.union(site - 1, site);
 		}
 		//If not right side then fill right.
-		if(j != size - 1) {
-			if(isOpen(i,j+1)) {
-				wqu.union(getSite(i,j+1), getSite(i,j));
-			}			
-		}
-		//Prevent backwash.
-		if(i == size-1) {
-			if(!(wqu.connected(top,bottom))) {
-				wqu.union(getSite(i,j), bottom);
-			}
+		if(j != size - 1 && uf.isOpen(site + 1)) {
+			flags = uf.union(site + 1, site);
 		}
+		//The last union holds the flags of the whole merged component.
+		if(flags == (GridUnionFind.TOP | GridUnionFind.BOTTOM)) {
+			percolates = true;
 		}
 	} 
+
+	/**
+	 * Opens a site in PACKED storage, flooding from it if it joins the top row to
+	 * sites that were not full before.
+	 * @param site site id
+	 * @param i row of site
+	 * @param j column of site
+	 */
+	private void openPacked(int site, int i, int j) {
+		if(open.get(i, j)) {
+			return;
+		}
+		openSites++;
+		open.set(i, j);
+		if(i == 0 || full.get(i - 1, j) || (i != size - 1 && full.get(i + 1, j))
+				|| (j != 0 && full.get(i, j - 1)) || (j != size - 1 && full.get(i, j + 1))) {
+			fill(site);
+		}
+	}
+
+	/**
+	 * Marks full every open site connected to site. An open run is connected, so it is
+	 * either all full or not full at all, and it is filled whole.
+	 * @param site open site id next to a full site or on the top row
+	 */
+	private void fill(int site) {
+		int top = push(site, 0);
+		while(top > 0) {
+			site = stack[--top];
+			int i = site / size;
+			int j = site % size;
+			if(full.get(i, j)) {
+				continue;
+			}
+			int from = open.previousClearBit(i, j) + 1;
+			int to = open.nextClearBit(i, j);
+			full.set(i, from, to);
+			if(i == size - 1) {
+				percolates = true;
+			}
+			else {
+				top = seedRow(i + 1, from, to, top);
+			}
+			if(i > 0) {
+				top = seedRow(i - 1, from, to, top);
+			}
+		}
+	}
+
+	/**
+	 * Pushes one seed for every run of open sites in row i that touches columns from
+	 * (inclusive) to to (exclusive) and is not full yet.
+	 * @param i row
+	 * @param from first column
+	 * @param to column after the last one
+	 * @param top current stack height
+	 * @return New stack height.
+	 */
+	private int seedRow(int i, int from, int to, int top) {
+		for(int j = open.nextSetBitNotIn(full, i, from, to); j >= 0;
+				j = open.nextSetBitNotIn(full, i, open.nextClearBit(i, j), to)) {
+			top = push(getSite(i, j), top);
+		}
+		return top;
+	}
+
+	/**
+	 * Pushes site onto the flood stack, growing it if needed.
+	 * @param site site id
+	 * @param top current stack height
+	 * @return New stack height.
+	 */
+	private int push(int site, int top) {
+		if(top == stack.length) {
+			stack = Arrays.copyOf(stack, 2 * top);
+		}
+		stack[top] = site;
+		return top + 1;
+	}
 	
 	/**
 	 * Checks whether site (row i, column j) is open.
@@ -91,9 +273,11 @@ public class Percolation {
 	 * @return True if site is open, false otherwise.
 	 */
 	public boolean isOpen(int i, int j) {
-		if((i < 0 || i >= size) || ((i < 0 || i >= size))) 
-			throw new IndexOutOfBoundsException("Cannot check if site is open: index is out of range\nsize " + size);
-		return grid[i][j]; 
+		validate(i, j, "Cannot check if site is open");
+		if(uf == null) {
+			return open.get(i, j);
+		}
+		return uf.isOpen(getSite(i, j)); 
 	}
 	
 	/**
@@ -103,9 +287,50 @@ public class Percolation {
 	 * @return True if site is full, false otherwise.
 	 */
 	public boolean isFull(int i, int j) {
-		if((i < 0 || i >= size) || ((i < 0 || i >= size))) 
-			throw new IndexOutOfBoundsException("Cannot check if site is full: index is out of range\nsize " + size);
-		return wqu.connected(top, getSite(i,j));
+		validate(i, j, "Cannot check if site is full");
+		if(uf == null) {
+			return full.get(i, j);
+		}
+		return (uf.flags(getSite(i, j)) & GridUnionFind.TOP) != 0;
+	}
+
+	/**
+	 * Number of open sites in row i. PACKED storage counts them 64 at a time.
+	 * @param i row
+	 * @return Open site count.
+	 */
+	public int openSitesInRow(int i) {
+		validate(i, 0, "Cannot count open sites");
+		if(uf == null) {
+			return open.cardinality(i);
+		}
+		int count = 0;
+		for(int site = getSite(i, 0), end = site + size; site < end; site++) {
+			if(uf.isOpen(site)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the first open site in row i at or after column j. PACKED storage skips
+	 * 64 blocked sites per step.
+	 * @param i row
+	 * @param j first column to look at
+	 * @return Column of the first open site, or -1 if there is none.
+	 */
+	public int nextOpenSite(int i, int j) {
+		validate(i, j, "Cannot scan row");
+		if(uf == null) {
+			return open.nextSetBit(i, j);
+		}
+		for(int site = getSite(i, j); j < size; j++, site++) {
+			if(uf.isOpen(site)) {
+				return j;
+			}
+		}
+		return -1;
 	}
 	
 	/**
@@ -113,7 +338,53 @@ public class Percolation {
 	 * @return True if system percolates, false otherwise.
 	 */
 	public boolean percolates() {
-		return wqu.connected(top, bottom); 
+		return percolates; 
+	}
+
+	/**
+	 * Number of clusters of connected open sites.
+	 * @return Cluster count.
+	 */
+	public int numberOfClusters() {
+		clusterStatistics();
+		return uf.components();
+	}
+
+	/**
+	 * Number of sites in the largest cluster.
+	 * @return Largest cluster size.
+	 */
+	public int largestCluster() {
+		clusterStatistics();
+		return uf.largest();
+	}
+
+	/**
+	 * Fraction of all sites that belong to the largest cluster.
+	 * @return Largest cluster size divided by N*N.
+	 */
+	public double largestClusterFraction() {
+		clusterStatistics();
+		return uf.largest() / ((double) size * size);
+	}
+
+	/**
+	 * Number of clusters that connect the top row to the bottom row.
+	 * @return Spanning cluster count.
+	 */
+	public int spanningClusters() {
+		clusterStatistics();
+		return uf.spanning();
+	}
+
+	/**
+	 * Number of clusters with exactly s sites. Needs the size histogram.
+	 * @param s cluster size
+	 * @return Cluster count of that size.
+	 */
+	public int clusterSizeCount(int s) {
+		clusterStatistics();
+		return uf.sizeCount(s);
 	}
 
 	/**
@@ -125,6 +396,25 @@ public class Percolation {
 		return String.valueOf(openSites);
 	}
 	
+	/**
+	 * Throws if the grid has no union-find to keep cluster statistics in.
+	 */
+	private void clusterStatistics() {
+		if(uf == null)
+			throw new IllegalStateException("Cluster statistics are not kept in PACKED storage");
+	}
+
+	/**
+	 * Throws if row i or column j is outside the grid.
+	 * @param i row
+	 * @param j column
+	 * @param action Start of the exception message.
+	 */
+	private void validate(int i, int j, String action) {
+		if(i < 0 || i >= size || j < 0 || j >= size) 
+			throw new IndexOutOfBoundsException(action + ": index is out of range\nsize " + size);
+	}
+	
 	/**
 	 * Returns 1-dimensional site id.
 	 * @param i row
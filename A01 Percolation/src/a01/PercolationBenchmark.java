@@ -0,0 +1,295 @@
+package a01;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Quick micro-benchmark harness for the percolation hot paths, run from the command line:
+ * <pre>
+ * java a01.PercolationBenchmark [-n 100,500,1000,2000,4000] [-impl grid,packed,two-uf]
+ *     [-bench open,openBatch,isFull,percolates,stats] [-warmup 2] [-iterations 5]
+ * </pre>
+ * Every benchmark runs on the same shuffled opening orders for each storage
+ * implementation: grid is Percolation over its union-find, packed is Percolation in
+ * PACKED storage and two-uf is the textbook TwoUnionFindPercolation. openBatch
+ * exercises an API only Percolation has, so it skips two-uf; stats always runs on grid,
+ * and only when grid is among the selected implementations.
+ * Warmup iterations are discarded and the median and best of the measured ones are
+ * printed as tab-separated rows, so runs can be diffed or pasted into a spreadsheet.
+ * Everything runs in one JVM, so for numbers to compare across changes use the JMH
+ * benchmarks in jmh/a01 instead (mvn -P jmh package, see pom.xml), which fork fresh
+ * JVMs and sink every result into a Blackhole.
+ * <ul>
+ * <li>open: opening every site, per open.</li>
+ * <li>openBatch: opening every site with one Percolation.open(int[]) call, per site.</li>
+ * <li>isFull: asking every site once the system percolates, per query.</li>
+ * <li>percolates: opening sites with a percolates check after each one, per open.</li>
+ * <li>stats: a full PercolationStats trial in each Mode on one thread, per trial.</li>
+ * </ul>
+ * 
+ * @author Jeff Ostler and Kim Soto
+ *
+ */
+public class PercolationBenchmark {
+	private static final int STATS_TRIALS = 10;
+	private static final List<String> BENCHMARKS = Arrays.asList("open", "openBatch", "isFull", "percolates", "stats");
+
+	private static volatile long sink; //Keeps results alive so the JIT cannot drop the work.
+
+	/**
+	 * The union-find implementations under test.
+	 */
+	private enum Impl {
+		GRID("grid", Percolation.Storage.UNION_FIND), PACKED("packed", Percolation.Storage.PACKED),
+		TWO_UF("two-uf", null);
+
+		private final String label;
+		private final Percolation.Storage storage; //Null unless the implementation is Percolation.
+
+		Impl(String label, Percolation.Storage storage) {
+			this.label = label;
+			this.storage = storage;
+		}
+
+		static Impl parse(String label) {
+			for(Impl impl : values()) {
+				if(impl.label.equals(label)) return impl;
+			}
+			throw new IllegalArgumentException("Unknown implementation: " + label);
+		}
+	}
+
+	/**
+	 * Runs the selected benchmarks.
+	 * @param args options, see the class comment
+	 */
+	public static void main(String[] args) {
+		int[] sizes = {100, 500, 1000, 2000, 4000};
+		List<Impl> impls = Arrays.asList(Impl.values());
+		List<String> benches = BENCHMARKS;
+		int warmup = 2;
+		int iterations = 5;
+		for(int a = 0; a < args.length; a += 2) {
+			if(a + 1 == args.length) {
+				throw new IllegalArgumentException("Missing value for option: " + args[a]);
+			}
+			String value = args[a + 1];
+			switch(args[a]) {
+			case "-n":
+				sizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+				break;
+			case "-impl":
+				impls = new ArrayList<>();
+				for(String label : value.split(",")) impls.add(Impl.parse(label));
+				break;
+			case "-bench":
+				benches = Arrays.asList(value.split(","));
+				for(String bench : benches) {
+					if(!BENCHMARKS.contains(bench)) throw new IllegalArgumentException("Unknown benchmark: " + bench);
+				}
+				break;
+			case "-warmup":
+				warmup = Integer.parseInt(value);
+				break;
+			case "-iterations":
+				iterations = Integer.parseInt(value);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[a]);
+			}
+		}
+		for(int N : sizes) {
+			if(N <= 0) throw new IllegalArgumentException("N <= 0: " + N);
+		}
+		if(warmup < 0 || iterations <= 0)
+			throw new IllegalArgumentException("warmup < 0 or iterations <= 0");
+		boolean grid = impls.contains(Impl.GRID);
+
+		System.out.println("bench\timpl\tN\tmedian ns/op\tbest ns/op");
+		for(int N : sizes) {
+			int[] order = shuffledSites(N, new SplittableRandom(N));
+			for(String bench : benches) {
+				if(bench.equals("stats")) {
+					if(grid) {
+						for(PercolationStats.Mode mode : PercolationStats.Mode.values()) {
+							report("stats-" + mode.name().toLowerCase(), "grid", N,
+									measure(warmup, iterations, () -> runStats(N, mode)));
+						}
+					}
+					continue;
+				}
+				if(bench.equals("openBatch")) {
+					for(Impl impl : impls) {
+						if(impl.storage != null) {
+							report(bench, impl.label, N, measure(warmup, iterations, () -> openBatchGrid(N, impl.storage, order)));
+						}
+					}
+					continue;
+				}
+				for(Impl impl : impls) {
+					report(bench, impl.label, N, measure(warmup, iterations, work(bench, impl, N, order)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * One timed unit of work.
+	 */
+	private interface Work {
+		/**
+		 * Does the work once.
+		 * @return Number of operations performed.
+		 */
+		long run();
+	}
+
+	/**
+	 * Times the work, discarding warmup iterations.
+	 * @return Nanoseconds per operation of every measured iteration, sorted.
+	 */
+	private static double[] measure(int warmup, int iterations, Work work) {
+		double[] results = new double[iterations];
+		for(int it = -warmup; it < iterations; it++) {
+			long start = System.nanoTime();
+			long ops = work.run();
+			long elapsed = System.nanoTime() - start;
+			if(it >= 0) {
+				results[it] = (double) elapsed / ops;
+			}
+		}
+		Arrays.sort(results);
+		return results;
+	}
+
+	private static void report(String bench, String impl, int N, double[] results) {
+		System.out.printf("%s\t%s\t%d\t%.2f\t%.2f%n", bench, impl, N, results[results.length / 2], results[0]);
+	}
+
+	/**
+	 * Builds the timed work for one benchmark and implementation.
+	 */
+	private static Work work(String bench, Impl impl, int N, int[] order) {
+		Percolation.Storage storage = impl.storage;
+		boolean grid = storage != null;
+		switch(bench) {
+		case "open":
+			return grid ? () -> openGrid(N, storage, order) : () -> openTwoUF(N, order);
+		case "isFull":
+			return grid ? isFullGrid(N, storage, order) : isFullTwoUF(N, order);
+		case "percolates":
+			return grid ? () -> percolatesGrid(N, storage, order) : () -> percolatesTwoUF(N, order);
+		default:
+			throw new IllegalArgumentException("Unknown benchmark: " + bench);
+		}
+	}
+
+	private static long openGrid(int N, Percolation.Storage storage, int[] order) {
+		Percolation p = new Percolation(N, storage);
+		for(int site : order) {
+			p.open(site / N, site % N);
+		}
+		sink += p.percolates() ? 1 : 0;
+		return order.length;
+	}
+
+	private static long openBatchGrid(int N, Percolation.Storage storage, int[] order) {
+		Percolation p = new Percolation(N, storage);
+		p.open(order);
+		sink += p.percolates() ? 1 : 0;
+		return order.length;
+	}
+
+	private static long openTwoUF(int N, int[] order) {
+		TwoUnionFindPercolation p = new TwoUnionFindPercolation(N);
+		for(int site : order) {
+			p.open(site / N, site % N);
+		}
+		sink += p.percolates() ? 1 : 0;
+		return order.length;
+	}
+
+	/**
+	 * Opens sites until the system percolates, then returns the isFull query loop.
+	 * Only the queries are timed; repeated iterations see the paths the earlier ones
+	 * compressed, which is the steady state a visualiser polling isFull would see.
+	 */
+	private static Work isFullGrid(int N, Percolation.Storage storage, int[] order) {
+		Percolation p = new Percolation(N, storage);
+		for(int k = 0; !p.percolates(); k++) {
+			p.open(order[k] / N, order[k] % N);
+		}
+		return () -> {
+			int full = 0;
+			for(int i = 0; i < N; i++) {
+				for(int j = 0; j < N; j++) {
+					if(p.isFull(i, j)) full++;
+				}
+			}
+			sink += full;
+			return (long) N * N;
+		};
+	}
+
+	private static Work isFullTwoUF(int N, int[] order) {
+		TwoUnionFindPercolation p = new TwoUnionFindPercolation(N);
+		for(int k = 0; !p.percolates(); k++) {
+			p.open(order[k] / N, order[k] % N);
+		}
+		return () -> {
+			int full = 0;
+			for(int i = 0; i < N; i++) {
+				for(int j = 0; j < N; j++) {
+					if(p.isFull(i, j)) full++;
+				}
+			}
+			sink += full;
+			return (long) N * N;
+		};
+	}
+
+	private static long percolatesGrid(int N, Percolation.Storage storage, int[] order) {
+		Percolation p = new Percolation(N, storage);
+		int k = 0;
+		while(!p.percolates()) {
+			p.open(order[k] / N, order[k] % N);
+			k++;
+		}
+		return k;
+	}
+
+	private static long percolatesTwoUF(int N, int[] order) {
+		TwoUnionFindPercolation p = new TwoUnionFindPercolation(N);
+		int k = 0;
+		while(!p.percolates()) {
+			p.open(order[k] / N, order[k] % N);
+			k++;
+		}
+		return k;
+	}
+
+	private static long runStats(int N, PercolationStats.Mode mode) {
+		PercolationStats stats = new PercolationStats(N, STATS_TRIALS, mode, 1, N);
+		sink += Double.doubleToLongBits(stats.mean());
+		return STATS_TRIALS;
+	}
+
+	/**
+	 * Fisher-Yates shuffle of the N*N site ids.
+	 */
+	private static int[] shuffledSites(int N, SplittableRandom rng) {
+		int[] order = new int[N * N];
+		for(int k = 0; k < order.length; k++) {
+			order[k] = k;
+		}
+		for(int k = order.length - 1; k > 0; k--) {
+			int r = rng.nextInt(k + 1);
+			int temp = order[k];
+			order[k] = order[r];
+			order[r] = temp;
+		}
+		return order;
+	}
+}
@@ -0,0 +1,297 @@
+package a01;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An N by N grid size plus the order in which its sites are opened, as found in the
+ * lib/input*.txt files: N followed by whitespace-separated (row, column) pairs.
+ * <p>
+ * Text files are memory-mapped and integers are parsed straight out of the mapped
+ * bytes, a window at a time so files past 2GB work too. For replaying the same
+ * sequence many times there is a binary format: the int "PERC", a version, N, the
+ * number of sites and then the row-major site ids, all big-endian.
+ * 
+ * @author Jeff Ostler and Kim Soto
+ *
+ */
+public class PercolationInstance {
+	private static final int MAGIC = 0x50455243; //"PERC"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 16;
+	private static final long WINDOW = 1 << 30; //Bytes mapped at once.
+
+	private final int size;
+	private final int[] sites;
+
+	/**
+	 * Creates an instance from a grid size and site ids in opening order.
+	 * @param N size of grid
+	 * @param sites row-major site ids, copied
+	 */
+	public PercolationInstance(int N, int[] sites) {
+		if(N <= 0) throw new IndexOutOfBoundsException(N + "is less than 0");
+		for(int site : sites) {
+			if(site < 0 || site >= N * N)
+				throw new IndexOutOfBoundsException("Site " + site + " is out of range\nsize " + N);
+		}
+		size = N;
+		this.sites = sites.clone();
+	}
+
+	/**
+	 * Grid size.
+	 * @return N.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Number of sites in the opening sequence.
+	 * @return Sequence length.
+	 */
+	public int count() {
+		return sites.length;
+	}
+
+	/**
+	 * Site opened at step k.
+	 * @param k step
+	 * @return Row-major site id.
+	 */
+	public int site(int k) {
+		return sites[k];
+	}
+
+	/**
+	 * Opens every site of the sequence on a fresh grid.
+	 * @return Percolation with the sequence applied.
+	 */
+	public Percolation replay() {
+		Percolation p = new Percolation(size);
+		for(int site : sites) {
+			p.open(site / size, site % size);
+		}
+		return p;
+	}
+
+	/**
+	 * Reads a text instance into memory.
+	 * @param path text file
+	 * @return The instance.
+	 * @throws IOException if the file cannot be read
+	 */
+	public static PercolationInstance readText(Path path) throws IOException {
+		return readText(path, (int) WINDOW);
+	}
+
+	/**
+	 * Reads a text instance into memory, mapping at most window bytes of it at a time.
+	 * @param path text file
+	 * @param window most bytes mapped at once
+	 * @return The instance.
+	 * @throws IOException if the file cannot be read
+	 */
+	public static PercolationInstance readText(Path path, int window) throws IOException {
+		if(window <= 0) throw new IllegalArgumentException("window <= 0: " + window);
+		SiteCollector collector = new SiteCollector();
+		parseText(path, window, collector);
+		return new PercolationInstance(collector.size, Arrays.copyOf(collector.sites, collector.count));
+	}
+
+	/**
+	 * Opens the sites of a text instance as they are parsed, without keeping the sequence.
+	 * @param path text file
+	 * @return Percolation with every site of the file open.
+	 * @throws IOException if the file cannot be read
+	 */
+	public static Percolation openText(Path path) throws IOException {
+		Percolation[] p = new Percolation[1];
+		parseText(path, WINDOW, new Sink() {
+			@Override
+			public void size(int N) {
+				p[0] = new Percolation(N);
+			}
+
+			@Override
+			public void site(int i, int j) {
+				p[0].open(i, j);
+			}
+		});
+		return p[0];
+	}
+
+	/**
+	 * Reads a binary instance written by writeBinary.
+	 * @param path binary file
+	 * @return The instance.
+	 * @throws IOException if the file cannot be read
+	 */
+	public static PercolationInstance readBinary(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if(channel.size() < HEADER_BYTES)
+				throw new IllegalArgumentException(path + " is too short for a binary instance");
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+			if(header.getInt() != MAGIC || header.getInt() != VERSION)
+				throw new IllegalArgumentException(path + " is not a version " + VERSION + " binary instance");
+			int N = header.getInt();
+			int count = header.getInt();
+			if(count < 0 || channel.size() != HEADER_BYTES + 4L * count)
+				throw new IllegalArgumentException(path + " does not hold " + count + " sites");
+
+			int[] sites = new int[count];
+			int done = 0;
+			while(done < count) {
+				int chunk = (int) Math.min(count - done, WINDOW / 4);
+				MappedByteBuffer body = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + 4L * done, 4L * chunk);
+				IntBuffer ints = body.asIntBuffer();
+				ints.get(sites, done, chunk);
+				done += chunk;
+			}
+			return new PercolationInstance(N, sites);
+		}
+	}
+
+	/**
+	 * Writes the instance in the binary format.
+	 * @param path file to create or replace
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeBinary(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(sites.length);
+			for(int site : sites) {
+				if(buffer.remaining() < 4) {
+					drain(channel, buffer);
+				}
+				buffer.putInt(site);
+			}
+			drain(channel, buffer);
+		}
+	}
+
+	private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Receives a text instance as it is parsed.
+	 */
+	private interface Sink {
+		void size(int N);
+		void site(int i, int j);
+	}
+
+	/**
+	 * Gathers parsed sites into a growing array.
+	 */
+	private static class SiteCollector implements Sink {
+		private int size;
+		private int[] sites = new int[16];
+		private int count;
+
+		@Override
+		public void size(int N) {
+			size = N;
+		}
+
+		@Override
+		public void site(int i, int j) {
+			if(i < 0 || i >= size || j < 0 || j >= size)
+				throw new IndexOutOfBoundsException("Site (" + i + ", " + j + ") is out of range\nsize " + size);
+			if(count == sites.length) {
+				sites = Arrays.copyOf(sites, 2 * count);
+			}
+			sites[count++] = i * size + j;
+		}
+	}
+
+	/**
+	 * Maps the file a window at a time and parses non-negative decimal integers straight
+	 * from the bytes. Number state carries across windows, so a number split by a window
+	 * boundary is read correctly.
+	 * @param path text file
+	 * @param window most bytes mapped at once
+	 * @param sink receives N and then every (row, column) pair
+	 * @throws IOException if the file cannot be read
+	 */
+	private static void parseText(Path path, long window, Sink sink) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long length = channel.size();
+			long value = 0;
+			boolean inNumber = false;
+			int numbers = 0;
+			int row = 0;
+			for(long offset = 0; offset <= length; offset += window) {
+				int chunk = (int) Math.min(window, length - offset);
+				MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, offset, chunk);
+				//One extra pass with a blank after the last window ends a trailing number.
+				for(int k = 0; k <= chunk; k++) {
+					int b = k < chunk ? bytes.get(k) : (offset + chunk == length ? ' ' : -1);
+					if(b >= '0' && b <= '9') {
+						value = 10 * value + (b - '0');
+						if(value > Integer.MAX_VALUE)
+							throw new IllegalArgumentException("Number too large at byte " + (offset + k) + " of " + path);
+						inNumber = true;
+					}
+					else if(b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+						if(inNumber) {
+							if(numbers == 0) {
+								if(value == 0) throw new IllegalArgumentException(path + " has grid size 0");
+								sink.size((int) value);
+							}
+							else if(numbers % 2 == 1) {
+								row = (int) value;
+							}
+							else {
+								sink.site(row, (int) value);
+							}
+							numbers++;
+							value = 0;
+							inNumber = false;
+						}
+					}
+					else if(b != -1) {
+						throw new IllegalArgumentException("Unexpected byte " + b + " at byte " + (offset + k) + " of " + path);
+					}
+				}
+			}
+			if(numbers == 0)
+				throw new IllegalArgumentException(path + " is empty");
+			if(numbers % 2 == 0)
+				throw new IllegalArgumentException(path + " ends with half a site");
+		}
+	}
+
+	/**
+	 * Reads a text instance and prints whether it percolates, optionally converting it
+	 * to the binary format.
+	 * @param args text file, and optionally the binary file to write
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		PercolationInstance instance = readText(Paths.get(args[0]));
+		System.out.printf("N = %d, %d sites, percolates: %b%n", instance.size(), instance.count(),
+				instance.replay().percolates());
+		if(args.length > 1) {
+			instance.writeBinary(Paths.get(args[1]));
+			PercolationInstance copy = readBinary(Paths.get(args[1]));
+			System.out.printf("wrote %s, round trip %s%n", args[1],
+					Arrays.equals(instance.sites, copy.sites) ? "matches" : "DIFFERS");
+		}
+	}
+}
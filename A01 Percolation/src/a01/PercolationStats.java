@@ -1,86 +1,441 @@
-package a01;
-
-import edu.princeton.cs.algs4.StdRandom;
-import edu.princeton.cs.algs4.StdStats;
-
-/**
- * Performs independent computational experiments on an N by N grid.
- * Using this data, it can calculate the mean, standard deviation,
- * and a 95% confidence interval for the percolation threshold.
- * 
- * @author Kim Soto and Jeff Ostler
- *
- */
-public class PercolationStats {
-	
-	private double[] stats; //Array filled with open spaces divided by N*N.
-	private Percolation p; 
-	
-	/**
-	 * Perform T independent experiments on an N-by-N grid.
-	 * @param N size of grid
-	 * @param T Number of test runs
-	 */
-	public PercolationStats(int N, int T) {
-		if (N <= 0 || T <= 0) 
-            throw new IllegalArgumentException("N <= 0 or T <= 0");
-		
-		stats = new double[T];
-		for(int i = 0; i < T; i++) {
-			p = new Percolation(N);
-			double openCount = 0;
-			
-			while(!p.percolates()){
-				int x = StdRandom.uniform(N);
-				int y = StdRandom.uniform(N);
-				
-				if(!p.isOpen(x,y)) {
-					p.open(x, y);
-					openCount++;
-				}
-			}
-			stats[i] = openCount / (N*N);
-		}
-	}
-	
-	/**
-	 * Sample mean of percolation threshold.
-	 * @return Mean of the data inside stats.
-	 */
-	public double mean() {
-		return StdStats.mean(stats); 
-	}
-	
-	/**
-	 * Sample standard deviation of percolation threshold.
-	 * @return Standard deviation inside stats.
-	 */
-	public double stddev() {
-		return StdStats.stddev(stats); 
-	}
-	
-	/**
-	 * Low endpoint of 95% confidence interval.
-	 * @return Low endpoint.
-	 */
-	public double confidenceLow() {
-		double low = 0.0;
-		for(double el: stats) {
-			low = mean() - (1.96 * stddev())/ Math.sqrt(el);
-		}
-		return low; 
-	}
-	
-	/**
-	 * High endpoint of 95% confidence interval.
-	 * @return High endpoint.
-	 */
-	public double confidenceHigh() {
-		double high = 0.0;
-		for(double el: stats) {
-			high = mean() + (1.96 * stddev())/ Math.sqrt(el);
-		}
-		return high; 
-	}
-
-}
+package a01;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * Performs independent computational experiments on an N by N grid.
+ * Using this data, it can calculate the mean, standard deviation,
+ * and a 95% confidence interval for the percolation threshold.
+ *
+ * Results are folded into a running mean and variance as trials finish, so the
+ * statistics cost O(1) and a run can stop once the confidence interval is narrow enough.
+ *
+ * Trials run on a fixed pool of worker threads. Each trial draws from its own
+ * RandomSource split off a single root source, so the results only depend on the
+ * root's seed and not on the number of threads. A long seed means a
+ * Xoroshiro128PlusPlus root seeded with it.
+ *
+ * In SHUFFLED mode a trial opens sites in a random order drawn by SiteOrder, which
+ * checks each draw against one bit per site instead of REJECTION's union-find lookup,
+ * and takes one random number per draw instead of two. BISECTION mode draws the same
+ * order and finds the threshold with ThresholdSearch, an incremental flood fill, instead
+ * of a union-find; it is the fastest mode from about N=500 up, and on the same seed it
+ * reports exactly the same numbers as SHUFFLED.
+ *
+ * @author Kim Soto and Jeff Ostler
+ *
+ */
+public class PercolationStats {
+
+	/**
+	 * How a trial chooses the next site to open.
+	 */
+	public enum Mode {
+		/** Draw random sites and skip the ones that are already open. */
+		REJECTION,
+		/** Open sites in a random order that never repeats a site. */
+		SHUFFLED,
+		/** Bisect over prefixes of the SHUFFLED order with a flood fill. */
+		BISECTION
+	}
+
+	private static final double CONFIDENCE_95 = 1.96;
+	private static final int MIN_TRIALS = 30; //Fewest trials before stopping early.
+
+	private final RunningStats stats = new RunningStats(); //Open spaces divided by N*N.
+	private final Mode mode;
+
+	/**
+	 * Perform T independent experiments on an N-by-N grid using every available core.
+	 * The seed is drawn from StdRandom, so each instance runs new experiments and
+	 * StdRandom.setSeed makes a whole run reproducible.
+	 * @param N size of grid
+	 * @param T Number of test runs
+	 */
+	public PercolationStats(int N, int T) {
+		this(N, T, Runtime.getRuntime().availableProcessors(), (long) (StdRandom.uniform() * 0x1.0p53));
+	}
+
+	/**
+	 * Perform T independent experiments on an N-by-N grid.
+	 * @param N size of grid
+	 * @param T Number of test runs
+	 * @param threads Number of worker threads
+	 * @param seed Seed that all trial streams are split from
+	 */
+	public PercolationStats(int N, int T, int threads, long seed) {
+		this(N, T, Mode.REJECTION, threads, seed);
+	}
+
+	/**
+	 * Perform T independent experiments on an N-by-N grid.
+	 * @param N size of grid
+	 * @param T Number of test runs
+	 * @param mode How trials pick sites to open
+	 * @param threads Number of worker threads
+	 * @param seed Seed that all trial streams are split from
+	 */
+	public PercolationStats(int N, int T, Mode mode, int threads, long seed) {
+		this(N, T, mode, threads, new Xoroshiro128PlusPlus(seed));
+	}
+
+	/**
+	 * Perform T independent experiments on an N-by-N grid.
+	 * @param N size of grid
+	 * @param T Number of test runs
+	 * @param mode How trials pick sites to open
+	 * @param threads Number of worker threads
+	 * @param random Source that all trial streams are split from; it is advanced
+	 */
+	public PercolationStats(int N, int T, Mode mode, int threads, RandomSource random) {
+		if (mode == null || random == null)
+			throw new NullPointerException("mode or random is null");
+		if (N <= 0 || T <= 0)
+            throw new IllegalArgumentException("N <= 0 or T <= 0");
+		if (threads <= 0)
+			throw new IllegalArgumentException("threads <= 0");
+
+		this.mode = mode;
+		run(N, T, T, 0.0, threads, random);
+	}
+
+	/**
+	 * Perform experiments on an N-by-N grid until the 95% confidence interval is at most
+	 * halfWidth either side of the mean, or maxT experiments have run. At least 30
+	 * experiments run unless maxT is smaller. The stopping point only depends on the
+	 * seed, not on the number of threads.
+	 * @param N size of grid
+	 * @param halfWidth Target half-width of the confidence interval
+	 * @param maxT Most test runs to perform
+	 * @param mode How trials pick sites to open
+	 * @param threads Number of worker threads
+	 * @param seed Seed that all trial streams are split from
+	 */
+	public PercolationStats(int N, double halfWidth, int maxT, Mode mode, int threads, long seed) {
+		this(N, halfWidth, maxT, mode, threads, new Xoroshiro128PlusPlus(seed));
+	}
+
+	/**
+	 * Perform experiments on an N-by-N grid until the 95% confidence interval is at most
+	 * halfWidth either side of the mean, or maxT experiments have run. At least 30
+	 * experiments run unless maxT is smaller. The stopping point only depends on the
+	 * random source's state, not on the number of threads.
+	 * @param N size of grid
+	 * @param halfWidth Target half-width of the confidence interval
+	 * @param maxT Most test runs to perform
+	 * @param mode How trials pick sites to open
+	 * @param threads Number of worker threads
+	 * @param random Source that all trial streams are split from; it is advanced
+	 */
+	public PercolationStats(int N, double halfWidth, int maxT, Mode mode, int threads, RandomSource random) {
+		if (mode == null || random == null)
+			throw new NullPointerException("mode or random is null");
+		if (N <= 0 || maxT <= 0)
+            throw new IllegalArgumentException("N <= 0 or maxT <= 0");
+		if (!(halfWidth > 0))
+			throw new IllegalArgumentException("halfWidth <= 0");
+		if (threads <= 0)
+			throw new IllegalArgumentException("threads <= 0");
+
+		this.mode = mode;
+		run(N, maxT, Math.min(maxT, Math.max(MIN_TRIALS, 4 * threads)), halfWidth, threads, random);
+	}
+
+	/**
+	 * Runs trials in batches and feeds their results to stats in trial order, stopping
+	 * as soon as the interval is narrow enough. Streams are split off the root in trial
+	 * order as well, so trial i always sees the same numbers whatever the batch size.
+	 * @param N size of grid
+	 * @param maxT Most test runs to perform
+	 * @param batch Trials to run between checks of the interval
+	 * @param halfWidth Target half-width, 0 to always run maxT trials
+	 * @param threads Number of worker threads
+	 * @param root Source that all trial streams are split from
+	 */
+	private void run(int N, int maxT, int batch, double halfWidth, int threads, RandomSource root) {
+		RandomSource[] streams = new RandomSource[batch];
+		double[] results = new double[batch];
+		int workers = Math.min(threads, batch);
+		//Scratch space is allocated by each worker on first use and kept across batches.
+		SiteOrder[] orders = new SiteOrder[workers];
+		ThresholdSearch[] searches = new ThresholdSearch[workers];
+		ExecutorService pool = workers > 1 ? Executors.newFixedThreadPool(workers) : null;
+		try {
+			for(int done = 0; done < maxT; done += batch) {
+				int count = Math.min(batch, maxT - done);
+				for(int k = 0; k < count; k++) {
+					streams[k] = root.split();
+				}
+				if(pool == null) {
+					runWorker(0, N, streams, results, count, new AtomicInteger(), orders, searches);
+				}
+				else {
+					runParallel(pool, workers, N, streams, results, count, orders, searches);
+				}
+				for(int k = 0; k < count; k++) {
+					stats.add(results[k]);
+					if(halfWidth > 0 && stats.count() >= MIN_TRIALS
+							&& stats.halfWidth(CONFIDENCE_95) <= halfWidth) {
+						return;
+					}
+				}
+			}
+		} finally {
+			if(pool != null) {
+				pool.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Hands out the trials of one batch to the workers until all of them have run.
+	 * @param pool Worker threads
+	 * @param workers Number of workers to start
+	 * @param N size of grid
+	 * @param streams One random stream per trial
+	 * @param results Fraction of open sites per trial, filled in
+	 * @param count Number of trials in the batch
+	 * @param orders Per-worker site orders
+	 * @param searches Per-worker threshold searches
+	 */
+	private void runParallel(ExecutorService pool, int workers, int N, RandomSource[] streams,
+			double[] results, int count, SiteOrder[] orders, ThresholdSearch[] searches) {
+		AtomicInteger next = new AtomicInteger();
+		Future<?>[] futures = new Future<?>[workers];
+		try {
+			for(int w = 0; w < workers; w++) {
+				int worker = w;
+				futures[w] = pool.submit(() -> runWorker(worker, N, streams, results, count, next, orders, searches));
+			}
+			for(Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while running trials", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Trial failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Runs trials of a batch until none are left to claim.
+	 * @param worker Index of this worker's scratch space
+	 * @param N size of grid
+	 * @param streams One random stream per trial
+	 * @param results Fraction of open sites per trial, filled in
+	 * @param count Number of trials in the batch
+	 * @param next Index of the next unclaimed trial
+	 * @param orders Per-worker site orders
+	 * @param searches Per-worker threshold searches
+	 */
+	private void runWorker(int worker, int N, RandomSource[] streams, double[] results, int count,
+			AtomicInteger next, SiteOrder[] orders, ThresholdSearch[] searches) {
+		if(orders[worker] == null && searches[worker] == null) {
+			orders[worker] = newOrder(N);
+			searches[worker] = newSearch(N);
+		}
+		for(int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+			results[i] = runTrial(N, streams[i], orders[worker], searches[worker]);
+		}
+	}
+
+	/**
+	 * Allocates the site order a worker reuses across its trials, if the mode needs one.
+	 * @param N size of grid
+	 * @return Site order for an N by N grid, or null.
+	 */
+	private SiteOrder newOrder(int N) {
+		return mode == Mode.SHUFFLED ? new SiteOrder(N) : null;
+	}
+
+	/**
+	 * Allocates the threshold search a worker reuses across its trials, if the mode needs one.
+	 * @param N size of grid
+	 * @return Search buffers for an N by N grid, or null.
+	 */
+	private ThresholdSearch newSearch(int N) {
+		return mode == Mode.BISECTION ? new ThresholdSearch(N) : null;
+	}
+
+	/**
+	 * Runs one trial in the configured mode.
+	 * @param N size of grid
+	 * @param rng Random stream owned by this trial
+	 * @param order Site order reused across trials, null unless in SHUFFLED mode
+	 * @param search Threshold search reused across trials, null unless in BISECTION mode
+	 * @return Fraction of sites open when the system first percolates.
+	 */
+	private double runTrial(int N, RandomSource rng, SiteOrder order, ThresholdSearch search) {
+		switch(mode) {
+		case SHUFFLED:
+			return runShuffledTrial(N, rng, order);
+		case BISECTION:
+			return search.threshold(rng) / ((double) N * N);
+		default:
+			return runRejectionTrial(N, rng);
+		}
+	}
+
+	/**
+	 * Opens sites in a random order until the system percolates. The drawn set is
+	 * cleared first so a trial's result only depends on its own stream, not on which
+	 * worker ran it before.
+	 * @param N size of grid
+	 * @param rng Random stream owned by this trial
+	 * @param order Site order for an N by N grid
+	 * @return Fraction of sites open when the system first percolates.
+	 */
+	private static double runShuffledTrial(int N, RandomSource rng, SiteOrder order) {
+		order.reset(rng);
+		Percolation p = new Percolation(N);
+		int k = 0;
+		while(!p.percolates()) {
+			int site = order.next();
+			k++;
+			p.open(site / N, site % N);
+		}
+		return k / ((double) N * N);
+	}
+
+	/**
+	 * Opens random sites until the system percolates.
+	 * @param N size of grid
+	 * @param rng Random stream owned by this trial
+	 * @return Fraction of sites open when the system first percolates.
+	 */
+	private static double runRejectionTrial(int N, RandomSource rng) {
+		Percolation p = new Percolation(N);
+		double openCount = 0;
+
+		while(!p.percolates()){
+			int x = rng.nextInt(N);
+			int y = rng.nextInt(N);
+
+			if(!p.isOpen(x,y)) {
+				p.open(x, y);
+				openCount++;
+			}
+		}
+		return openCount / ((double) N * N);
+	}
+
+	/**
+	 * Estimates the percolation probability curve: for each site vacancy probability
+	 * p[m], the fraction of T trials in which opening round(p[m] * N * N) random sites
+	 * percolates. Each trial draws one random opening order and sweeps it across every
+	 * p in ascending order, then rolls the grid back to empty for the next trial, so
+	 * one RollbackPercolation serves the whole curve.
+	 * @param N size of grid
+	 * @param p probabilities between 0 and 1, in any order
+	 * @param T Number of test runs
+	 * @param seed Seed that all trial streams are split from
+	 * @return Estimated probability of percolating for each entry of p.
+	 */
+	public static double[] percolationProbability(int N, double[] p, int T, long seed) {
+		return percolationProbability(N, p, T, new Xoroshiro128PlusPlus(seed));
+	}
+
+	/**
+	 * Estimates the percolation probability curve as above, drawing every trial's
+	 * stream from the given source.
+	 * @param N size of grid
+	 * @param p probabilities between 0 and 1, in any order
+	 * @param T Number of test runs
+	 * @param random Source that all trial streams are split from; it is advanced
+	 * @return Estimated probability of percolating for each entry of p.
+	 */
+	public static double[] percolationProbability(int N, double[] p, int T, RandomSource random) {
+		if (random == null)
+			throw new NullPointerException("random is null");
+		if (N <= 0 || T <= 0)
+            throw new IllegalArgumentException("N <= 0 or T <= 0");
+		Integer[] ascending = new Integer[p.length];
+		for(int m = 0; m < p.length; m++) {
+			if(!(p[m] >= 0 && p[m] <= 1))
+				throw new IllegalArgumentException("p[" + m + "] is not between 0 and 1: " + p[m]);
+			ascending[m] = m;
+		}
+		Arrays.sort(ascending, (a, b) -> Double.compare(p[a], p[b]));
+
+		int[] sites = new int[N * N];
+		int[] hits = new int[p.length];
+		RollbackPercolation grid = new RollbackPercolation(N);
+		int empty = grid.checkpoint();
+		for(int t = 0; t < T; t++) {
+			RandomSource rng = random.split();
+			for(int k = 0; k < sites.length; k++) {
+				sites[k] = k;
+			}
+			int opened = 0;
+			for(int m : ascending) {
+				int target = (int) Math.round(p[m] * sites.length);
+				for(; opened < target; opened++) {
+					int r = opened + rng.nextInt(sites.length - opened);
+					int site = sites[r];
+					sites[r] = sites[opened];
+					sites[opened] = site;
+					grid.open(site / N, site % N);
+				}
+				if(grid.percolates()) {
+					hits[m]++;
+				}
+			}
+			grid.rollback(empty);
+		}
+
+		double[] probability = new double[p.length];
+		for(int m = 0; m < p.length; m++) {
+			probability[m] = hits[m] / (double) T;
+		}
+		return probability;
+	}
+
+	/**
+	 * Number of experiments that were run.
+	 * @return Count of trials.
+	 */
+	public int trials() {
+		return stats.count();
+	}
+
+	/**
+	 * Sample mean of percolation threshold.
+	 * @return Mean of the trial results.
+	 */
+	public double mean() {
+		return stats.mean();
+	}
+
+	/**
+	 * Sample standard deviation of percolation threshold.
+	 * @return Standard deviation of the trial results.
+	 */
+	public double stddev() {
+		return stats.stddev();
+	}
+
+	/**
+	 * Low endpoint of 95% confidence interval.
+	 * @return Low endpoint.
+	 */
+	public double confidenceLow() {
+		return stats.mean() - stats.halfWidth(CONFIDENCE_95);
+	}
+
+	/**
+	 * High endpoint of 95% confidence interval.
+	 * @return High endpoint.
+	 */
+	public double confidenceHigh() {
+		return stats.mean() + stats.halfWidth(CONFIDENCE_95);
+	}
+
+}
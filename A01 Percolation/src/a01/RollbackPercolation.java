@@ -0,0 +1,126 @@
+package a01;
+
+/**
+ * Percolation on an N by N grid that can return to an earlier state. checkpoint marks
+ * the current state and rollback undoes every open since then, in time proportional
+ * to the changes undone rather than the size of the grid. That lets one random
+ * opening order be swept across many probabilities, or one grid be reused across
+ * trials, without reallocating.
+ * <p>
+ * The union-find behind it links by size and never compresses paths, so finds cost
+ * O(log N) instead of the near-constant time of Percolation; use Percolation when
+ * nothing needs undoing.
+ * 
+ * @author Jeff Ostler and Kim Soto
+ *
+ */
+public class RollbackPercolation {
+	private final int size;
+	private final RollbackUnionFind uf;
+
+	/**
+	 * Creates NbyN grid, with all sites blocked.
+	 * @param N
+	 */
+	public RollbackPercolation(int N) {
+		if(N <= 0) throw new IndexOutOfBoundsException(N + "is less than 0");
+		size = N;
+		uf = new RollbackUnionFind(N * N, false);
+	}
+
+	/**
+	 * Open site (row i, column j) if it is not open already.
+	 * @param i
+	 * @param j
+	 */
+	public void open(int i, int j) {
+		validate(i, j, "Cannot open site");
+		int site = size * i + j;
+		if(uf.isOpen(site)) {
+			return;
+		}
+		uf.open(site);
+		int flags = 0;
+		if(i == 0) {
+			flags |= GridUnionFind.TOP;
+		}
+		if(i == size - 1) {
+			flags |= GridUnionFind.BOTTOM;
+		}
+		if(flags != 0) {
+			uf.mark(site, flags);
+		}
+		if(i != 0 && uf.isOpen(site - size)) {
+			uf.union(site - size, site);
+		}
+		if(i != size - 1 && uf.isOpen(site + size)) {
+			uf.union(site + size, site);
+		}
+		if(j != 0 && uf.isOpen(site - 1)) {
+			uf.union(site - 1, site);
+		}
+		if(j != size - 1 && uf.isOpen(site + 1)) {
+			uf.union(site + 1, site);
+		}
+	}
+
+	/**
+	 * Checks whether site (row i, column j) is open.
+	 * @param i
+	 * @param j
+	 * @return True if site is open, false otherwise.
+	 */
+	public boolean isOpen(int i, int j) {
+		validate(i, j, "Cannot check if site is open");
+		return uf.isOpen(size * i + j);
+	}
+
+	/**
+	 * Checks whether site (row i, column j) is full.
+	 * @param i
+	 * @param j
+	 * @return True if site is full, false otherwise.
+	 */
+	public boolean isFull(int i, int j) {
+		validate(i, j, "Cannot check if site is full");
+		return (uf.flags(size * i + j) & GridUnionFind.TOP) != 0;
+	}
+
+	/**
+	 * Decides whether the system percolates.
+	 * @return True if system percolates, false otherwise.
+	 */
+	public boolean percolates() {
+		return uf.spanning() > 0;
+	}
+
+	/**
+	 * Number of open sites.
+	 * @return Open site count.
+	 */
+	public int numberOfOpenSites() {
+		return uf.opened();
+	}
+
+	/**
+	 * Marks the current state. Checkpoints nest: rolling back to one discards every
+	 * checkpoint taken after it.
+	 * @return Checkpoint to pass to rollback.
+	 */
+	public int checkpoint() {
+		return uf.checkpoint();
+	}
+
+	/**
+	 * Returns to the state the checkpoint was taken in.
+	 * @param checkpoint value returned by checkpoint
+	 */
+	public void rollback(int checkpoint) {
+		uf.rollback(checkpoint);
+	}
+
+	private void validate(int i, int j, String action) {
+		if(i < 0 || i >= size || j < 0 || j >= size) 
+			throw new IndexOutOfBoundsException(action + ": index is out of range\nsize " + size);
+	}
+}
@@ -0,0 +1,199 @@
+package a01;
+
+import java.util.Arrays;
+
+/**
+ * Union-find that can undo its changes. Entries use the same encoding as GridUnionFind:
+ * a parent link, or the complement of a root's size shifted left by two with TOP and
+ * BOTTOM flags in the low bits, -1 for a blocked site. Unions go by size and finds do not
+ * compress paths, so every change touches at most two entries and is pushed onto an undo
+ * log. rollback pops the log back to a checkpoint. Finds are O(log n).
+ * 
+ * @author Jeff Ostler and Kim Soto
+ *
+ */
+final class RollbackUnionFind {
+	private static final int FLAGS = GridUnionFind.TOP | GridUnionFind.BOTTOM;
+	private static final int BLOCKED = ~0;
+	private static final int SPANNING = -1; //Log index standing for the spanning counter.
+	private static final int OPENED = -2; //Log index standing for the open site counter.
+
+	private final int[] id;
+	private int spanning;
+	private int opened;
+	private int[] log = new int[64]; //Pairs of (index, old value).
+	private int logSize;
+
+	/**
+	 * Creates n sites.
+	 * @param n number of sites
+	 * @param open whether every site starts open, as a component of its own
+	 */
+	RollbackUnionFind(int n, boolean open) {
+		id = new int[n];
+		Arrays.fill(id, open ? ~(1 << 2) : BLOCKED);
+		opened = open ? n : 0;
+	}
+
+	/**
+	 * Checks whether site p is open.
+	 * @param p site id
+	 * @return True if site is open, false otherwise.
+	 */
+	boolean isOpen(int p) {
+		return id[p] != BLOCKED;
+	}
+
+	/**
+	 * Opens site p as a component of its own. Does nothing if it is already open.
+	 * @param p site id
+	 */
+	void open(int p) {
+		if(id[p] == BLOCKED) {
+			set(p, ~(1 << 2));
+			push(OPENED, opened++);
+		}
+	}
+
+	/**
+	 * Returns the root of the component containing p.
+	 * @param p site id
+	 * @return Root site id.
+	 */
+	int find(int p) {
+		while(id[p] >= 0) {
+			p = id[p];
+		}
+		return p;
+	}
+
+	/**
+	 * Merges the components containing the open sites p and q, smaller under larger.
+	 * @param p site id
+	 * @param q site id
+	 * @return Flags of the merged component.
+	 */
+	int union(int p, int q) {
+		int rootP = find(p);
+		int rootQ = find(q);
+		int metaP = ~id[rootP];
+		if(rootP == rootQ) {
+			return metaP & FLAGS;
+		}
+		int metaQ = ~id[rootQ];
+		int sizeP = metaP >>> 2;
+		int sizeQ = metaQ >>> 2;
+		int merged = (sizeP + sizeQ) << 2 | ((metaP | metaQ) & FLAGS);
+		if(sizeP < sizeQ) {
+			set(rootP, rootQ);
+			set(rootQ, ~merged);
+		}
+		else {
+			set(rootQ, rootP);
+			set(rootP, ~merged);
+		}
+		addSpanning(spans(merged) - spans(metaP) - spans(metaQ));
+		return merged & FLAGS;
+	}
+
+	/**
+	 * Adds flags to the component containing the open site p.
+	 * @param p site id
+	 * @param flags TOP, BOTTOM or both
+	 * @return Flags of the component after marking.
+	 */
+	int mark(int p, int flags) {
+		int root = find(p);
+		int before = ~id[root];
+		int after = before | flags;
+		if(after != before) {
+			set(root, ~after);
+			addSpanning(spans(after) - spans(before));
+		}
+		return after & FLAGS;
+	}
+
+	/**
+	 * Returns the flags of the component containing p.
+	 * @param p site id
+	 * @return TOP and BOTTOM bits, 0 if p is blocked.
+	 */
+	int flags(int p) {
+		return ~id[find(p)] & FLAGS;
+	}
+
+	/**
+	 * Number of components touching both the top and the bottom.
+	 * @return Spanning component count.
+	 */
+	int spanning() {
+		return spanning;
+	}
+
+	/**
+	 * Number of open sites.
+	 * @return Open site count.
+	 */
+	int opened() {
+		return opened;
+	}
+
+	/**
+	 * Marks the current state so it can be restored.
+	 * @return Checkpoint to pass to rollback.
+	 */
+	int checkpoint() {
+		return logSize;
+	}
+
+	/**
+	 * Undoes every change made since the checkpoint was taken.
+	 * @param checkpoint value returned by checkpoint
+	 */
+	void rollback(int checkpoint) {
+		if(checkpoint < 0 || checkpoint > logSize)
+			throw new IllegalArgumentException("Checkpoint " + checkpoint + " is not in the undo log");
+		while(logSize > checkpoint) {
+			logSize -= 2;
+			int index = log[logSize];
+			int old = log[logSize + 1];
+			if(index == SPANNING) {
+				spanning = old;
+			}
+			else if(index == OPENED) {
+				opened = old;
+			}
+			else {
+				id[index] = old;
+			}
+		}
+	}
+
+	private void set(int index, int value) {
+		push(index, id[index]);
+		id[index] = value;
+	}
+
+	private void addSpanning(int delta) {
+		if(delta != 0) {
+			push(SPANNING, spanning);
+			spanning += delta;
+		}
+	}
+
+	private void push(int index, int old) {
+		if(logSize == log.length) {
+			log = Arrays.copyOf(log, 2 * logSize);
+		}
+		log[logSize++] = index;
+		log[logSize++] = old;
+	}
+
+	/**
+	 * 1 if a root entry's flags say it touches both the top and bottom, 0 otherwise.
+	 * @param meta complement of a root entry
+	 */
+	private static int spans(int meta) {
+		return (meta & FLAGS) == FLAGS ? 1 : 0;
+	}
+}
@@ -0,0 +1,58 @@
+package a01;
+
+/**
+ * Mean and sample standard deviation of a stream of values, updated in O(1) per value
+ * with Welford's method so no samples need to be kept.
+ * 
+ * @author Kim Soto and Jeff Ostler
+ *
+ */
+final class RunningStats {
+	private int count;
+	private double mean;
+	private double squares; //Sum of squared differences from the current mean.
+
+	/**
+	 * Adds a value to the stream.
+	 * @param x value
+	 */
+	void add(double x) {
+		count++;
+		double delta = x - mean;
+		mean += delta / count;
+		squares += delta * (x - mean);
+	}
+
+	/**
+	 * Returns the number of values added.
+	 * @return Count of values.
+	 */
+	int count() {
+		return count;
+	}
+
+	/**
+	 * Sample mean, NaN if nothing was added.
+	 * @return Mean of the values.
+	 */
+	double mean() {
+		return count == 0 ? Double.NaN : mean;
+	}
+
+	/**
+	 * Sample standard deviation, NaN with fewer than two values.
+	 * @return Standard deviation of the values.
+	 */
+	double stddev() {
+		return count < 2 ? Double.NaN : Math.sqrt(squares / (count - 1));
+	}
+
+	/**
+	 * Half-width of the confidence interval around the mean.
+	 * @param z critical value, 1.96 for 95%
+	 * @return z times the standard error.
+	 */
+	double halfWidth(double z) {
+		return z * stddev() / Math.sqrt(count);
+	}
+}
@@ -0,0 +1,200 @@
+package a01;
+
+import java.util.Arrays;
+
+/**
+ * One bit per site of an N by N grid, packed into longs. Every row starts on a fresh
+ * word, so a row is a short run of words and row scans, popcounts and run searches
+ * handle 64 sites per step. Padding bits past column N-1 are always clear.
+ * 
+ * @author Jeff Ostler and Kim Soto
+ *
+ */
+final class SiteBitSet {
+	private final int size;
+	private final int wordsPerRow;
+	private final long[] words;
+
+	/**
+	 * Creates an N by N grid of clear bits.
+	 * @param N size of grid
+	 */
+	SiteBitSet(int N) {
+		size = N;
+		wordsPerRow = (N + 63) >>> 6;
+		words = new long[N * wordsPerRow];
+	}
+
+	/**
+	 * Checks the bit of site (row i, column j).
+	 * @param i row
+	 * @param j column
+	 * @return True if the bit is set, false otherwise.
+	 */
+	boolean get(int i, int j) {
+		return (words[i * wordsPerRow + (j >>> 6)] & (1L << j)) != 0;
+	}
+
+	/**
+	 * Sets the bit of site (row i, column j).
+	 * @param i row
+	 * @param j column
+	 */
+	void set(int i, int j) {
+		words[i * wordsPerRow + (j >>> 6)] |= 1L << j;
+	}
+
+	/**
+	 * Clears the bit of site (row i, column j).
+	 * @param i row
+	 * @param j column
+	 */
+	void clear(int i, int j) {
+		words[i * wordsPerRow + (j >>> 6)] &= ~(1L << j);
+	}
+
+	/**
+	 * Sets the bits of columns from (inclusive) to to (exclusive) in row i.
+	 * @param i row
+	 * @param from first column
+	 * @param to column after the last one
+	 */
+	void set(int i, int from, int to) {
+		if(from >= to) {
+			return;
+		}
+		int row = i * wordsPerRow;
+		int first = from >>> 6;
+		int last = (to - 1) >>> 6;
+		long firstMask = -1L << from;
+		long lastMask = -1L >>> -to;
+		if(first == last) {
+			words[row + first] |= firstMask & lastMask;
+			return;
+		}
+		words[row + first] |= firstMask;
+		for(int w = first + 1; w < last; w++) {
+			words[row + w] = -1L;
+		}
+		words[row + last] |= lastMask;
+	}
+
+	/**
+	 * Clears every bit.
+	 */
+	void clear() {
+		Arrays.fill(words, 0L);
+	}
+
+	/**
+	 * Makes every bit equal to the same bit of other.
+	 * @param other Grid of the same size
+	 */
+	void copyFrom(SiteBitSet other) {
+		System.arraycopy(other.words, 0, words, 0, words.length);
+	}
+
+	/**
+	 * Counts the set bits in row i.
+	 * @param i row
+	 * @return Number of set bits.
+	 */
+	int cardinality(int i) {
+		int count = 0;
+		for(int w = i * wordsPerRow, end = w + wordsPerRow; w < end; w++) {
+			count += Long.bitCount(words[w]);
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the first column at or after j in row i whose bit is set here but not in other.
+	 * @param other Grid of the same size
+	 * @param i row
+	 * @param j first column to look at
+	 * @param to column to stop before
+	 * @return Column of the first such bit, or -1 if there is none before to.
+	 */
+	int nextSetBitNotIn(SiteBitSet other, int i, int j, int to) {
+		if(j >= to) {
+			return -1;
+		}
+		int row = i * wordsPerRow;
+		int w = j >>> 6;
+		long word = (words[row + w] & ~other.words[row + w]) & (-1L << j);
+		while(true) {
+			if(word != 0) {
+				int col = (w << 6) + Long.numberOfTrailingZeros(word);
+				return col < to ? col : -1;
+			}
+			if(++w << 6 >= to) {
+				return -1;
+			}
+			word = words[row + w] & ~other.words[row + w];
+		}
+	}
+
+	/**
+	 * Finds the first set bit in row i at or after column j.
+	 * @param i row
+	 * @param j first column to look at
+	 * @return Column of the first set bit, or -1 if there is none.
+	 */
+	int nextSetBit(int i, int j) {
+		if(j >= size) {
+			return -1;
+		}
+		int row = i * wordsPerRow;
+		int w = j >>> 6;
+		long word = words[row + w] & (-1L << j);
+		while(word == 0) {
+			if(++w == wordsPerRow) {
+				return -1;
+			}
+			word = words[row + w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	/**
+	 * Finds the first clear bit in row i at or after column j.
+	 * @param i row
+	 * @param j first column to look at
+	 * @return Column of the first clear bit, N if the rest of the row is set.
+	 */
+	int nextClearBit(int i, int j) {
+		if(j >= size) {
+			return size;
+		}
+		int row = i * wordsPerRow;
+		int w = j >>> 6;
+		long word = ~words[row + w] & (-1L << j);
+		while(word == 0) {
+			if(++w == wordsPerRow) {
+				return size;
+			}
+			word = ~words[row + w];
+		}
+		//Padding bits are clear, so a full last word stops at column N.
+		return Math.min((w << 6) + Long.numberOfTrailingZeros(word), size);
+	}
+
+	/**
+	 * Finds the last clear bit in row i at or before column j.
+	 * @param i row
+	 * @param j last column to look at
+	 * @return Column of the last clear bit, -1 if the row is set up to j.
+	 */
+	int previousClearBit(int i, int j) {
+		int row = i * wordsPerRow;
+		int w = j >>> 6;
+		long word = ~words[row + w] & (-1L >>> (63 - (j & 63)));
+		while(word == 0) {
+			if(--w < 0) {
+				return -1;
+			}
+			word = ~words[row + w];
+		}
+		return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+	}
+}
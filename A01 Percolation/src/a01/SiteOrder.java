@@ -0,0 +1,57 @@
+package a01;
+
+import java.util.Arrays;
+
+/**
+ * A uniformly random order of the N*N site ids, drawn one site at a time: each draw
+ * picks a random site and draws again if that site has come up before. Only one bit
+ * per site is kept, so the set of drawn sites stays in cache where a shuffled int[N*N]
+ * would not, and nothing past the last site drawn is ever generated. Up to the
+ * percolation threshold fewer than 2.5 draws are needed per site on average.
+ *
+ * @author Jeff Ostler and Kim Soto
+ *
+ */
+final class SiteOrder {
+	private final int sites;
+	private final long[] drawn;
+	private RandomSource rng;
+	private int count;
+
+	/**
+	 * Allocates the drawn set for an N by N grid, reusable across orders.
+	 * @param N size of grid
+	 */
+	SiteOrder(int N) {
+		sites = N * N;
+		drawn = new long[(sites + 63) >>> 6];
+	}
+
+	/**
+	 * Starts a new order drawn from rng.
+	 * @param rng Random stream the order is drawn from
+	 */
+	void reset(RandomSource rng) {
+		this.rng = rng;
+		Arrays.fill(drawn, 0L);
+		count = 0;
+	}
+
+	/**
+	 * Draws the next site of the order.
+	 * @return Site id that has not been drawn since the last reset.
+	 */
+	int next() {
+		if(count == sites)
+			throw new IllegalStateException("Every site has been drawn");
+		while(true) {
+			int site = rng.nextInt(sites);
+			long bit = 1L << site;
+			if((drawn[site >>> 6] & bit) == 0) {
+				drawn[site >>> 6] |= bit;
+				count++;
+				return site;
+			}
+		}
+	}
+}
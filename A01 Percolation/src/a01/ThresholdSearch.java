@@ -0,0 +1,185 @@
+package a01;
+
+import java.util.Arrays;
+
+/**
+ * Finds the exact number of opened sites at which a random SiteOrder first percolates,
+ * without a union-find. Prefixes of the order are loaded into a SiteBitSet and checked
+ * with a flood fill from the top row. The search starts a little below the known
+ * threshold of the square lattice, gallops upwards until a prefix percolates and then
+ * bisects the last step, so the order is only drawn a little past the threshold.
+ *
+ * The sites reached from the top by the longest prefix known not to percolate are kept
+ * between checks. Checking a longer prefix only opens the sites added since then and
+ * floods onwards from those that touch the reached set, so every site is flooded about
+ * once over the whole search instead of once per check. A prefix that percolates is
+ * undone by restoring a copy of the reached set taken before its flood.
+ *
+ * The flood works on horizontal runs of open sites rather than single sites. A run is
+ * found and marked reached a word at a time, and the rows above and below are scanned
+ * for unreached open sites with word operations, so memory stays at three bits per site
+ * plus a stack that only grows with the number of runs waiting to be filled.
+ *
+ * @author Jeff Ostler and Kim Soto
+ *
+ */
+class ThresholdSearch {
+	//Site percolation threshold of the square lattice.
+	private static final double GUESS = 0.5927;
+
+	private final int size;
+	private final SiteBitSet open;
+	private SiteBitSet reached; //Full sites of the first opened sites of the order.
+	private SiteBitSet saved; //reached as it was before the current check.
+	private final SiteOrder draw;
+	private int[] stack;
+	private int[] order; //Sites drawn so far, in order.
+	private int drawn;
+	private int opened; //Longest prefix known not to percolate, and the one in open.
+
+	/**
+	 * Allocates the buffers for an N by N grid, reusable across searches.
+	 * @param N size of grid
+	 */
+	ThresholdSearch(int N) {
+		size = N;
+		open = new SiteBitSet(N);
+		reached = new SiteBitSet(N);
+		saved = new SiteBitSet(N);
+		draw = new SiteOrder(N);
+		stack = new int[Math.max(16, N)];
+		order = new int[Math.max(16, N)];
+	}
+
+	/**
+	 * Returns the smallest k such that opening the first k sites of a SiteOrder drawn
+	 * from rng percolates.
+	 * @param rng Random stream the order is drawn from
+	 * @return Number of sites open when the system first percolates.
+	 */
+	int threshold(RandomSource rng) {
+		draw.reset(rng);
+		drawn = 0;
+		open.clear();
+		reached.clear();
+		opened = 0;
+
+		int sites = size * size;
+		//No path from top to bottom needs fewer than N sites.
+		int step = size;
+		int hi = Math.max(size, (int) (GUESS * sites) - 4 * step);
+		while(!percolates(hi)) {
+			step *= 2;
+			hi = (int) Math.min((long) opened + step, sites);
+		}
+		//Invariant: prefix opened does not percolate, prefix hi does.
+		while(hi - opened > 1) {
+			int mid = (opened + hi) >>> 1;
+			if(percolates(mid)) {
+				hi = mid;
+			}
+		}
+		return hi;
+	}
+
+	/**
+	 * Checks whether opening the first k sites of the order percolates. If it does not,
+	 * prefix k becomes the one kept open.
+	 * @param k prefix length, longer than opened
+	 * @return True if the prefix percolates, false otherwise.
+	 */
+	private boolean percolates(int k) {
+		for(; drawn < k; drawn++) {
+			if(drawn == order.length) {
+				order = Arrays.copyOf(order, Math.min(2 * drawn, size * size));
+			}
+			order[drawn] = draw.next();
+		}
+
+		saved.copyFrom(reached);
+		int top = 0;
+		for(int n = opened; n < k; n++) {
+			open.set(order[n] / size, order[n] % size);
+		}
+		//Only added sites on the top row or next to a reached site start new floods.
+		for(int n = opened; n < k; n++) {
+			int i = order[n] / size;
+			int j = order[n] % size;
+			if(i == 0 || reached.get(i - 1, j) || (i + 1 < size && reached.get(i + 1, j))
+					|| (j > 0 && reached.get(i, j - 1)) || (j + 1 < size && reached.get(i, j + 1))) {
+				top = push(order[n], top);
+			}
+		}
+
+		if(flood(top)) {
+			SiteBitSet swap = reached;
+			reached = saved;
+			saved = swap;
+			for(int n = opened; n < k; n++) {
+				open.clear(order[n] / size, order[n] % size);
+			}
+			return true;
+		}
+		opened = k;
+		return false;
+	}
+
+	/**
+	 * Floods open sites into reached from the seeds on the stack.
+	 * @param top current stack height
+	 * @return True as soon as the bottom row is reached, false once the flood stops.
+	 */
+	private boolean flood(int top) {
+		while(top > 0) {
+			int site = stack[--top];
+			int i = site / size;
+			int j = site % size;
+			if(reached.get(i, j)) {
+				continue;
+			}
+			if(i == size - 1) {
+				return true;
+			}
+			int from = open.previousClearBit(i, j) + 1;
+			int to = open.nextClearBit(i, j);
+			reached.set(i, from, to);
+			//Below first, it is the direction the flood is trying to go.
+			top = seedRow(i + 1, from, to, top);
+			if(i > 0) {
+				top = seedRow(i - 1, from, to, top);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Pushes one seed for every run of open, unreached sites in row i that touches
+	 * columns from (inclusive) to to (exclusive).
+	 * @param i row
+	 * @param from first column
+	 * @param to column after the last one
+	 * @param top current stack height
+	 * @return New stack height.
+	 */
+	private int seedRow(int i, int from, int to, int top) {
+		for(int j = open.nextSetBitNotIn(reached, i, from, to); j >= 0;
+				j = open.nextSetBitNotIn(reached, i, open.nextClearBit(i, j), to)) {
+			top = push(i * size + j, top);
+		}
+		return top;
+	}
+
+	/**
+	 * Pushes site onto the flood stack, growing it if needed.
+	 * @param site site id
+	 * @param top current stack height
+	 * @return New stack height.
+	 */
+	private int push(int site, int top) {
+		if(top == stack.length) {
+			stack = Arrays.copyOf(stack, 2 * top);
+		}
+		stack[top] = site;
+		return top + 1;
+	}
+}
@@ -0,0 +1,98 @@
+package a01;
+
+import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+
+/**
+ * Textbook percolation model used as a baseline for PercolationBenchmark.
+ * One union-find links a virtual top and bottom and answers percolates, a second one
+ * without the virtual bottom answers isFull so it never sees backwash.
+ * 
+ * @author Jeff Ostler and Kim Soto
+ *
+ */
+class TwoUnionFindPercolation {
+	private final boolean[] open;
+	private final int size;
+	private final int top; //Virtual top.
+	private final int bottom; //Virtual bottom.
+	private final WeightedQuickUnionUF withBottom;
+	private final WeightedQuickUnionUF withoutBottom;
+
+	/**
+	 * Creates NbyN grid, with all sites blocked.
+	 * @param N
+	 */
+	TwoUnionFindPercolation(int N) {
+		if(N <= 0) throw new IndexOutOfBoundsException(N + "is less than 0");
+		size = N;
+		open = new boolean[N * N];
+		top = N * N;
+		bottom = top + 1;
+		withBottom = new WeightedQuickUnionUF(bottom + 1);
+		withoutBottom = new WeightedQuickUnionUF(top + 1);
+	}
+
+	/**
+	 * Open site (row i, column j) if it is not open already.
+	 * @param i
+	 * @param j
+	 */
+	void open(int i, int j) {
+		int site = size * i + j;
+		if(open[site]) {
+			return;
+		}
+		open[site] = true;
+		if(i == 0) {
+			connect(site, top);
+		}
+		if(i == size - 1) {
+			withBottom.union(site, bottom);
+		}
+		if(i != 0 && open[site - size]) {
+			connect(site, site - size);
+		}
+		if(i != size - 1 && open[site + size]) {
+			connect(site, site + size);
+		}
+		if(j != 0 && open[site - 1]) {
+			connect(site, site - 1);
+		}
+		if(j != size - 1 && open[site + 1]) {
+			connect(site, site + 1);
+		}
+	}
+
+	/**
+	 * Checks whether site (row i, column j) is open.
+	 * @param i
+	 * @param j
+	 * @return True if site is open, false otherwise.
+	 */
+	boolean isOpen(int i, int j) {
+		return open[size * i + j];
+	}
+
+	/**
+	 * Checks whether site (row i, column j) is full.
+	 * @param i
+	 * @param j
+	 * @return True if site is full, false otherwise.
+	 */
+	boolean isFull(int i, int j) {
+		return withoutBottom.connected(top, size * i + j);
+	}
+
+	/**
+	 * Decides whether the system percolates.
+	 * @return True if system percolates, false otherwise.
+	 */
+	boolean percolates() {
+		return withBottom.connected(top, bottom);
+	}
+
+	private void connect(int p, int q) {
+		withBottom.union(p, q);
+		withoutBottom.union(p, q);
+	}
+}
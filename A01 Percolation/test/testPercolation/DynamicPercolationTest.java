@@ -0,0 +1,172 @@
+package testPercolation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import a01.DynamicPercolation;
+import a01.Percolation;
+import a01.Xoroshiro128PlusPlus;
+
+/**
+ * J-unit tests on DynamicPercolation, checked against a Percolation rebuilt from the
+ * open sites at every query.
+ *
+ * @author Kim Soto and Jeff Ostler
+ *
+ */
+public class DynamicPercolationTest {
+
+	/**
+	 * Builds a fresh Percolation with the given sites open.
+	 */
+	private boolean rebuildPercolates(boolean[][] open) {
+		Percolation p = new Percolation(open.length);
+		for(int i = 0; i < open.length; i++) {
+			for(int j = 0; j < open.length; j++) {
+				if(open[i][j]) {
+					p.open(i, j);
+				}
+			}
+		}
+		return p.percolates();
+	}
+
+	/**
+	 * Runs a random sequence of operations on an N by N grid and checks every answer of
+	 * solve against a rebuilt grid.
+	 */
+	private void checkRandomSequence(int N, int operations, long seed) {
+		Xoroshiro128PlusPlus random = new Xoroshiro128PlusPlus(seed);
+		DynamicPercolation dynamic = new DynamicPercolation(N);
+		boolean[][] open = new boolean[N][N];
+		boolean[] expected = new boolean[operations];
+		int queries = 0;
+		for(int k = 0; k < operations; k++) {
+			int i = random.nextInt(N);
+			int j = random.nextInt(N);
+			int op = random.nextInt(4);
+			if(op < 2) {
+				dynamic.open(i, j);
+				open[i][j] = true;
+			}
+			else if(op == 2) {
+				dynamic.close(i, j);
+				open[i][j] = false;
+			}
+			else {
+				assertEquals(queries, dynamic.percolates());
+				expected[queries++] = rebuildPercolates(open);
+			}
+			assertEquals(open[i][j], dynamic.isOpen(i, j));
+		}
+		boolean[] answers = dynamic.solve();
+		assertEquals(queries, answers.length);
+		for(int q = 0; q < queries; q++) {
+			assertEquals("N " + N + " seed " + seed + " query " + q, expected[q], answers[q]);
+		}
+	}
+
+	@Test
+	public void testRandomSequences_MatchRebuild() {
+		//Short sequences give every query count from 0 up, most not a power of two.
+		for(int seed = 0; seed < 200; seed++) {
+			checkRandomSequence(1 + seed % 5, 1 + seed % 37, seed);
+		}
+	}
+
+	@Test
+	public void testLongSequence_MatchesRebuild() {
+		checkRandomSequence(6, 2000, 2420);
+	}
+
+	@Test
+	public void testNoQueries_EmptyAnswers() {
+		DynamicPercolation p = new DynamicPercolation(3);
+		p.open(0, 0);
+		p.close(0, 0);
+
+		assertEquals(0, p.solve().length);
+	}
+
+	@Test
+	public void testSingleQuery_Percolates() {
+		DynamicPercolation p = new DynamicPercolation(1);
+		p.open(0, 0);
+		p.percolates();
+
+		assertArrayEquals(new boolean[] { true }, p.solve());
+	}
+
+	@Test
+	public void testFiveQueries_CloseInTheMiddle() {
+		//Five leaves need an eight leaf tree; the three past the end are never walked.
+		DynamicPercolation p = new DynamicPercolation(3);
+		for(int i = 0; i < 3; i++) {
+			p.open(i, 1);
+		}
+		p.percolates();
+		p.percolates();
+		p.percolates();
+		p.close(1, 1);
+		p.percolates();
+		p.percolates();
+
+		assertArrayEquals(new boolean[] { true, true, true, false, false }, p.solve());
+	}
+
+	@Test
+	public void testBond_RecordedWhenFirstEndCloses() {
+		//The bond between (1,0) and (2,0) ends when (1,0) closes, even though (2,0) stays
+		//open until later and (1,0) reopens before the last query.
+		DynamicPercolation p = new DynamicPercolation(3);
+		p.open(0, 0);
+		p.open(1, 0);
+		p.open(2, 0);
+		p.percolates();
+		p.close(1, 0);
+		p.percolates();
+		p.close(2, 0);
+		p.percolates();
+		p.open(1, 0);
+		p.percolates();
+		p.open(2, 0);
+		p.percolates();
+
+		assertArrayEquals(new boolean[] { true, false, false, false, true }, p.solve());
+	}
+
+	@Test
+	public void testSiteOpenedAfterLastQuery_Ignored() {
+		DynamicPercolation p = new DynamicPercolation(2);
+		p.open(0, 0);
+		p.percolates();
+		p.open(1, 0);
+
+		assertArrayEquals(new boolean[] { false }, p.solve());
+	}
+
+	@Test
+	public void testIsOpen_FollowsSequence() {
+		DynamicPercolation p = new DynamicPercolation(2);
+		p.open(1, 1);
+		assertTrue(p.isOpen(1, 1));
+		p.close(1, 1);
+		assertFalse(p.isOpen(1, 1));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSolveTwice_Throws() {
+		DynamicPercolation p = new DynamicPercolation(2);
+		p.solve();
+		p.solve();
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testClose_RowOutOfRange() {
+		new DynamicPercolation(2).close(2, 0);
+	}
+}
@@ -0,0 +1,313 @@
+package testPercolation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import a01.BondPercolation;
+import a01.Lattice;
+import a01.LatticePercolation;
+import a01.Xoroshiro128PlusPlus;
+
+/**
+ * J-unit tests on Lattice neighbour tables and on site and bond percolation over them,
+ * checked against neighbours worked out from coordinates and a breadth-first search.
+ *
+ * @author Kim Soto and Jeff Ostler
+ *
+ */
+public class LatticeTest {
+	private static final int[][] SQUARE = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+	private static final int[][] TRIANGULAR = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}, {-1, 1}, {1, -1}};
+	private static final int[][] CUBIC = {{-1, 0, 0}, {1, 0, 0}, {0, -1, 0}, {0, 1, 0}, {0, 0, -1}, {0, 0, 1}};
+
+	/**
+	 * Neighbours of site from its coordinates, wrapping every axis but the first when
+	 * periodic.
+	 */
+	private Set<Integer> expectedNeighbours(String type, int N, boolean periodic, int site) {
+		int dims = type.equals("cubic") ? 3 : 2;
+		int[] c = new int[dims];
+		for(int d = dims - 1, rest = site; d >= 0; d--, rest /= N) {
+			c[d] = rest % N;
+		}
+		int[][] moves;
+		if(type.equals("square")) {
+			moves = SQUARE;
+		}
+		else if(type.equals("triangular")) {
+			moves = TRIANGULAR;
+		}
+		else if(type.equals("hexagonal")) {
+			moves = new int[][] {{0, -1}, {0, 1}, {(c[0] + c[1]) % 2 == 0 ? 1 : -1, 0}};
+		}
+		else {
+			moves = CUBIC;
+		}
+		Set<Integer> out = new HashSet<>();
+		for(int[] move : moves) {
+			int id = 0;
+			boolean inside = true;
+			for(int d = 0; d < dims; d++) {
+				int x = c[d] + move[d];
+				if(periodic && d > 0) {
+					x = (x + N) % N;
+				}
+				inside &= x >= 0 && x < N;
+				id = id * N + x;
+			}
+			if(inside) {
+				out.add(id);
+			}
+		}
+		return out;
+	}
+
+	private Lattice lattice(String type, int N, boolean periodic) {
+		switch(type) {
+		case "square": return Lattice.square(N, periodic);
+		case "triangular": return Lattice.triangular(N, periodic);
+		case "hexagonal": return Lattice.hexagonal(N, periodic);
+		default: return Lattice.cubic(N, periodic);
+		}
+	}
+
+	/**
+	 * Sites reachable from the top layer, moving only between open sites along open bonds.
+	 * @param open open sites
+	 * @param bonds open bonds as sets of neighbours per site, null to allow every bond
+	 */
+	private boolean[] reachable(Lattice lattice, boolean[] open, List<Set<Integer>> bonds) {
+		int[] buffer = new int[lattice.maxDegree()];
+		boolean[] seen = new boolean[lattice.sites()];
+		ArrayDeque<Integer> queue = new ArrayDeque<>();
+		for(int site = 0; site < lattice.sites(); site++) {
+			if(lattice.isTop(site) && open[site]) {
+				seen[site] = true;
+				queue.add(site);
+			}
+		}
+		while(!queue.isEmpty()) {
+			int site = queue.poll();
+			int degree = lattice.neighbours(site, buffer);
+			for(int k = 0; k < degree; k++) {
+				int q = buffer[k];
+				if(open[q] && !seen[q] && (bonds == null || bonds.get(site).contains(q))) {
+					seen[q] = true;
+					queue.add(q);
+				}
+			}
+		}
+		return seen;
+	}
+
+	private boolean anyBottom(Lattice lattice, boolean[] full) {
+		for(int site = 0; site < lattice.sites(); site++) {
+			if(full[site] && lattice.isBottom(site)) return true;
+		}
+		return false;
+	}
+
+	private int[] permutation(int n, Xoroshiro128PlusPlus random) {
+		int[] order = new int[n];
+		for(int k = 0; k < n; k++) {
+			order[k] = k;
+			int r = random.nextInt(k + 1);
+			order[k] = order[r];
+			order[r] = k;
+		}
+		return order;
+	}
+
+	@Test
+	public void testNeighbours_MatchCoordinates() {
+		for(String type : new String[] { "square", "triangular", "hexagonal", "cubic" }) {
+			for(int N = 1; N <= 6; N++) {
+				for(boolean periodic : new boolean[] { false, true }) {
+					if(type.equals("hexagonal") && periodic && N % 2 != 0) {
+						continue;
+					}
+					Lattice lattice = lattice(type, N, periodic);
+					int[] buffer = new int[lattice.maxDegree()];
+					Set<Long> pairs = new HashSet<>();
+					for(int site = 0; site < lattice.sites(); site++) {
+						Set<Integer> expected = expectedNeighbours(type, N, periodic, site);
+						Set<Integer> actual = new HashSet<>();
+						int degree = lattice.neighbours(site, buffer);
+						for(int k = 0; k < degree; k++) {
+							actual.add(buffer[k]);
+							if(buffer[k] > site) pairs.add((long) site * lattice.sites() + buffer[k]);
+						}
+						assertEquals(type + " N " + N + " periodic " + periodic + " site " + site, expected, actual);
+					}
+
+					//bonds lists every pair of distinct neighbours exactly once.
+					int[] bonds = lattice.bonds();
+					Set<Long> listed = new HashSet<>();
+					for(int b = 0; b < bonds.length; b += 2) {
+						assertTrue(bonds[b] < bonds[b + 1]);
+						assertTrue(listed.add((long) bonds[b] * lattice.sites() + bonds[b + 1]));
+					}
+					assertEquals(pairs, listed);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testNeighbours_Symmetric() {
+		for(String type : new String[] { "square", "triangular", "hexagonal", "cubic" }) {
+			Lattice lattice = lattice(type, 8, true);
+			int[] buffer = new int[lattice.maxDegree()];
+			int[] back = new int[lattice.maxDegree()];
+			for(int p = 0; p < lattice.sites(); p++) {
+				int degree = lattice.neighbours(p, buffer);
+				for(int k = 0; k < degree; k++) {
+					boolean found = false;
+					for(int m = 0, d = lattice.neighbours(buffer[k], back); m < d; m++) {
+						found |= back[m] == p;
+					}
+					assertTrue(type + " " + p + " and " + buffer[k], found);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testPeriodicSquare_WrapsColumnsNotRows() {
+		Lattice lattice = Lattice.square(4, true);
+		int[] buffer = new int[lattice.maxDegree()];
+		Set<Integer> corner = new HashSet<>();
+		for(int k = 0, degree = lattice.neighbours(lattice.site(0, 0), buffer); k < degree; k++) {
+			corner.add(buffer[k]);
+		}
+
+		assertEquals(3, corner.size());
+		assertTrue(corner.contains(lattice.site(0, 3)));
+		assertTrue(corner.contains(lattice.site(1, 0)));
+		assertTrue(corner.contains(lattice.site(0, 1)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPeriodicHexagonal_OddSizeRejected() {
+		Lattice.hexagonal(5, true);
+	}
+
+	@Test
+	public void testSitePercolation_MatchesSearch() {
+		for(String type : new String[] { "square", "triangular", "hexagonal", "cubic" }) {
+			for(boolean periodic : new boolean[] { false, true }) {
+				Lattice lattice = lattice(type, 6, periodic);
+				LatticePercolation p = new LatticePercolation(lattice);
+				boolean[] open = new boolean[lattice.sites()];
+				Xoroshiro128PlusPlus random = new Xoroshiro128PlusPlus(type.hashCode() + (periodic ? 1 : 0));
+				int[] order = permutation(lattice.sites(), random);
+				for(int k = 0; k < order.length; k++) {
+					p.open(order[k]);
+					open[order[k]] = true;
+					boolean[] full = reachable(lattice, open, null);
+					for(int site = 0; site < lattice.sites(); site++) {
+						assertEquals(open[site], p.isOpen(site));
+						assertEquals(type + " step " + k + " site " + site, full[site], p.isFull(site));
+					}
+					assertEquals(anyBottom(lattice, full), p.percolates());
+					assertEquals(k + 1, p.numberOfOpenSites());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testBondPercolation_MatchesSearch() {
+		for(String type : new String[] { "square", "triangular", "hexagonal", "cubic" }) {
+			for(boolean periodic : new boolean[] { false, true }) {
+				Lattice lattice = lattice(type, 4, periodic);
+				BondPercolation p = new BondPercolation(lattice);
+				boolean[] open = new boolean[lattice.sites()];
+				Arrays.fill(open, true);
+				List<Set<Integer>> bonds = new ArrayList<>();
+				for(int site = 0; site < lattice.sites(); site++) {
+					bonds.add(new HashSet<>());
+				}
+				int[] ends = lattice.bonds();
+				assertEquals(ends.length / 2, p.bonds());
+				int[] order = permutation(p.bonds(), new Xoroshiro128PlusPlus(type.hashCode()));
+				for(int k = 0; k < order.length; k++) {
+					int a = ends[2 * order[k]];
+					int b = ends[2 * order[k] + 1];
+					//Alternate between naming the bond by index and by its end points.
+					if(k % 2 == 0) {
+						p.open(order[k]);
+					}
+					else {
+						p.open(b, a);
+					}
+					bonds.get(a).add(b);
+					bonds.get(b).add(a);
+					boolean[] full = reachable(lattice, open, bonds);
+					for(int site = 0; site < lattice.sites(); site++) {
+						assertEquals(type + " step " + k + " site " + site, full[site], p.isFull(site));
+					}
+					assertEquals(anyBottom(lattice, full), p.percolates());
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBonds_TooManyForAnArray() {
+		//5.12e8 sites fit, but their 1.5e9 bonds need 3.1e9 entries.
+		Lattice.cubic(800, true).bonds();
+	}
+
+	@Test
+	public void testBondPercolation_OneLayerPercolatesAtOnce() {
+		assertTrue(new BondPercolation(Lattice.square(1, false)).percolates());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBondPercolation_NotNeighbours() {
+		Lattice lattice = Lattice.square(3, false);
+		new BondPercolation(lattice).open(lattice.site(0, 0), lattice.site(1, 1));
+	}
+
+	/**
+	 * Mean fraction of sites or bonds open when a random order first percolates.
+	 */
+	private double threshold(Lattice lattice, boolean bond, int trials) {
+		Xoroshiro128PlusPlus random = new Xoroshiro128PlusPlus(2420);
+		double sum = 0;
+		for(int t = 0; t < trials; t++) {
+			int k = 0;
+			if(bond) {
+				BondPercolation p = new BondPercolation(lattice);
+				int[] order = permutation(p.bonds(), random);
+				while(!p.percolates()) p.open(order[k++]);
+				sum += (double) k / order.length;
+			}
+			else {
+				LatticePercolation p = new LatticePercolation(lattice);
+				int[] order = permutation(lattice.sites(), random);
+				while(!p.percolates()) p.open(order[k++]);
+				sum += (double) k / order.length;
+			}
+		}
+		return sum / trials;
+	}
+
+	@Test
+	public void testThresholds_NearKnownValues() {
+		assertEquals(0.5, threshold(Lattice.square(48, false), true, 20), 0.03);
+		assertEquals(0.5, threshold(Lattice.triangular(48, false), false, 20), 0.03);
+		assertEquals(0.697, threshold(Lattice.hexagonal(48, false), false, 20), 0.03);
+		assertEquals(0.312, threshold(Lattice.cubic(16, false), false, 20), 0.03);
+	}
+}
@@ -0,0 +1,217 @@
+package testPercolation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import a01.Percolation;
+import a01.PercolationInstance;
+import a01.Xoroshiro128PlusPlus;
+
+/**
+ * J-unit tests on PercolationInstance: parsing the text format, including numbers split
+ * across mapped windows and malformed files, and the binary format round trip.
+ *
+ * @author Kim Soto and Jeff Ostler
+ *
+ */
+public class PercolationInstanceTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path write(String text) throws IOException {
+		Path path = folder.newFile().toPath();
+		Files.write(path, text.getBytes(StandardCharsets.US_ASCII));
+		return path;
+	}
+
+	private int[] sites(PercolationInstance instance) {
+		int[] sites = new int[instance.count()];
+		for(int k = 0; k < sites.length; k++) {
+			sites[k] = instance.site(k);
+		}
+		return sites;
+	}
+
+	/**
+	 * A text instance with random whitespace between numbers of one to three digits.
+	 */
+	private String randomText(int N, int count, Xoroshiro128PlusPlus random) {
+		String[] blanks = { " ", "  ", "\n", "\r\n", "\t", " \n " };
+		StringBuilder text = new StringBuilder().append(N);
+		for(int k = 0; k < count; k++) {
+			text.append(blanks[random.nextInt(blanks.length)]).append(random.nextInt(N));
+			text.append(blanks[random.nextInt(blanks.length)]).append(random.nextInt(N));
+		}
+		return text.toString();
+	}
+
+	@Test
+	public void testReadText_MixedWhitespace() throws IOException {
+		PercolationInstance instance = PercolationInstance.readText(write("3\n0 0\n 1 2\r\n2\t1\n"));
+
+		assertEquals(3, instance.size());
+		assertArrayEquals(new int[] { 0, 5, 7 }, sites(instance));
+	}
+
+	@Test
+	public void testReadText_NoTrailingNewline() throws IOException {
+		PercolationInstance instance = PercolationInstance.readText(write("12 11 10"));
+
+		assertEquals(12, instance.size());
+		assertArrayEquals(new int[] { 142 }, sites(instance));
+	}
+
+	@Test
+	public void testReadText_SizeOnly() throws IOException {
+		PercolationInstance instance = PercolationInstance.readText(write("5\n"));
+
+		assertEquals(5, instance.size());
+		assertEquals(0, instance.count());
+	}
+
+	@Test
+	public void testOpenText_SameAsReplay() throws IOException {
+		Path path = write(randomText(8, 40, new Xoroshiro128PlusPlus(8)));
+		Percolation opened = PercolationInstance.openText(path);
+		Percolation replayed = PercolationInstance.readText(path).replay();
+
+		for(int i = 0; i < 8; i++) {
+			for(int j = 0; j < 8; j++) {
+				assertEquals(replayed.isOpen(i, j), opened.isOpen(i, j));
+				assertEquals(replayed.isFull(i, j), opened.isFull(i, j));
+			}
+		}
+		assertEquals(replayed.percolates(), opened.percolates());
+	}
+
+	@Test
+	public void testReadText_EveryWindowSizeAgrees() throws IOException {
+		//Small windows split numbers and line endings at every possible point.
+		Path path = write(randomText(300, 200, new Xoroshiro128PlusPlus(300)));
+		PercolationInstance whole = PercolationInstance.readText(path);
+		for(int window = 1; window <= 40; window++) {
+			PercolationInstance split = PercolationInstance.readText(path, window);
+
+			assertEquals("window " + window, whole.size(), split.size());
+			assertArrayEquals("window " + window, sites(whole), sites(split));
+		}
+		assertEquals(200, whole.count());
+	}
+
+	@Test
+	public void testReadText_WindowEndsAtLastDigit() throws IOException {
+		//"7 1 2" is five bytes, so the last window ends right after the final number.
+		Path path = write("7 1 2");
+		for(int window : new int[] { 1, 5 }) {
+			assertArrayEquals(new int[] { 9 }, sites(PercolationInstance.readText(path, window)));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReadText_WindowNotPositive() throws IOException {
+		PercolationInstance.readText(write("1"), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReadText_UnexpectedByte() throws IOException {
+		PercolationInstance.readText(write("3\n0 x\n"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReadText_NegativeNumber() throws IOException {
+		PercolationInstance.readText(write("3\n0 -1\n"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReadText_HalfSite() throws IOException {
+		PercolationInstance.readText(write("3\n0 1\n2"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReadText_HalfSiteAcrossWindows() throws IOException {
+		PercolationInstance.readText(write("3\n0 1\n22"), 7);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReadText_Empty() throws IOException {
+		PercolationInstance.readText(write(""));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReadText_OnlyWhitespace() throws IOException {
+		PercolationInstance.readText(write(" \r\n\t"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReadText_GridSizeZero() throws IOException {
+		PercolationInstance.readText(write("0\n"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReadText_NumberTooLarge() throws IOException {
+		PercolationInstance.readText(write("3\n0 2147483648\n"));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testReadText_SiteOutOfRange() throws IOException {
+		PercolationInstance.readText(write("3\n0 0\n3 0\n"));
+	}
+
+	@Test
+	public void testBinary_RoundTripMatchesText() throws IOException {
+		Path text = write(randomText(70, 1000, new Xoroshiro128PlusPlus(70)));
+		Path binary = folder.newFile().toPath();
+		PercolationInstance original = PercolationInstance.readText(text);
+		original.writeBinary(binary);
+		PercolationInstance copy = PercolationInstance.readBinary(binary);
+
+		assertEquals(original.size(), copy.size());
+		assertArrayEquals(sites(original), sites(copy));
+		assertEquals(16 + 4L * 1000, Files.size(binary));
+		assertEquals(original.replay().percolates(), copy.replay().percolates());
+	}
+
+	@Test
+	public void testBinary_RewriteReplacesLongerFile() throws IOException {
+		Path binary = folder.newFile().toPath();
+		new PercolationInstance(4, new int[] { 0, 4, 8, 12, 15 }).writeBinary(binary);
+		new PercolationInstance(2, new int[] { 3 }).writeBinary(binary);
+		PercolationInstance copy = PercolationInstance.readBinary(binary);
+
+		assertEquals(2, copy.size());
+		assertArrayEquals(new int[] { 3 }, sites(copy));
+		assertFalse(copy.replay().percolates());
+		assertTrue(copy.replay().isOpen(1, 1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReadBinary_Truncated() throws IOException {
+		Path binary = folder.newFile().toPath();
+		new PercolationInstance(3, new int[] { 0, 1, 2 }).writeBinary(binary);
+		byte[] bytes = Files.readAllBytes(binary);
+		Files.write(binary, Arrays.copyOf(bytes, bytes.length - 2));
+		PercolationInstance.readBinary(binary);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReadBinary_TextFile() throws IOException {
+		PercolationInstance.readBinary(write("3\n0 0\n1 1\n2 2\n"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReadBinary_ShorterThanHeader() throws IOException {
+		PercolationInstance.readBinary(write("PERC"));
+	}
+}
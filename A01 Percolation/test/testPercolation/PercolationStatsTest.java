@@ -0,0 +1,147 @@
+package testPercolation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import edu.princeton.cs.algs4.StdRandom;
+
+import a01.PercolationStats;
+import a01.PercolationStats.Mode;
+import a01.Xoroshiro128PlusPlus;
+
+/**
+ * J-unit tests on PercolationStats trial modes, seeding and the percolation
+ * probability curve.
+ * 
+ * @author Kim Soto and Jeff Ostler
+ *
+ */
+public class PercolationStatsTest {
+
+	@Test
+	public void testBisection_AgreesWithShuffled() {
+		PercolationStats shuffled = new PercolationStats(40, 30, Mode.SHUFFLED, 1, 2420);
+		PercolationStats bisection = new PercolationStats(40, 30, Mode.BISECTION, 1, 2420);
+		
+		assertEquals(shuffled.mean(), bisection.mean(), 0.0);
+		assertEquals(shuffled.stddev(), bisection.stddev(), 0.0);
+	}
+
+	@Test
+	public void testBisection_AgreesWithShuffledEverySize() {
+		//Small grids start the search at its lower bound; 150 gallops from near the threshold.
+		for(int N : new int[] { 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 150 }) {
+			PercolationStats shuffled = new PercolationStats(N, 25, Mode.SHUFFLED, 1, N);
+			PercolationStats bisection = new PercolationStats(N, 25, Mode.BISECTION, 1, N);
+			
+			assertEquals("N " + N, shuffled.mean(), bisection.mean(), 0.0);
+			assertEquals("N " + N, shuffled.stddev(), bisection.stddev(), 0.0);
+		}
+	}
+
+	@Test
+	public void testThreads_SameResults() {
+		PercolationStats one = new PercolationStats(30, 20, Mode.SHUFFLED, 1, 7);
+		PercolationStats four = new PercolationStats(30, 20, Mode.SHUFFLED, 4, 7);
+		
+		assertEquals(one.mean(), four.mean(), 0.0);
+	}
+
+	@Test
+	public void testOneByOne_ThresholdIsOne() {
+		PercolationStats stats = new PercolationStats(1, 5, Mode.BISECTION, 1, 1);
+		
+		assertEquals(1.0, stats.mean(), 0.0);
+	}
+
+	@Test
+	public void testConfidence_SymmetricAroundMean() {
+		PercolationStats stats = new PercolationStats(20, 50, Mode.SHUFFLED, 1, 3);
+		double halfWidth = 1.96 * stats.stddev() / Math.sqrt(50);
+		
+		assertEquals(stats.mean() - halfWidth, stats.confidenceLow(), 1e-12);
+		assertEquals(stats.mean() + halfWidth, stats.confidenceHigh(), 1e-12);
+	}
+
+	@Test
+	public void testEarlyStop_ReachesHalfWidth() {
+		PercolationStats stats = new PercolationStats(20, 0.01, 10000, Mode.SHUFFLED, 2, 5);
+		
+		assertTrue(stats.trials() < 10000);
+		assertTrue(stats.confidenceHigh() - stats.mean() <= 0.01);
+	}
+
+	@Test
+	public void testEarlyStop_CappedByMaxT() {
+		PercolationStats stats = new PercolationStats(20, 1e-9, 40, Mode.SHUFFLED, 2, 5);
+		
+		assertEquals(40, stats.trials());
+	}
+
+	@Test
+	public void testEarlyStop_SameTrialsForAnyThreadCount() {
+		PercolationStats one = new PercolationStats(20, 0.005, 5000, Mode.SHUFFLED, 1, 11);
+		PercolationStats three = new PercolationStats(20, 0.005, 5000, Mode.SHUFFLED, 3, 11);
+		
+		assertEquals(one.trials(), three.trials());
+		assertEquals(one.mean(), three.mean(), 0.0);
+	}
+
+	@Test
+	public void testRandomSource_SameAsSeed() {
+		PercolationStats seeded = new PercolationStats(30, 20, Mode.SHUFFLED, 2, 13);
+		PercolationStats sourced = new PercolationStats(30, 20, Mode.SHUFFLED, 2, new Xoroshiro128PlusPlus(13));
+		
+		assertEquals(seeded.mean(), sourced.mean(), 0.0);
+		assertEquals(seeded.stddev(), sourced.stddev(), 0.0);
+	}
+
+	@Test
+	public void testDefaultSeed_NewExperimentsEachInstance() {
+		StdRandom.setSeed(2420);
+		PercolationStats first = new PercolationStats(30, 20);
+		PercolationStats second = new PercolationStats(30, 20);
+		
+		assertNotEquals(first.mean(), second.mean(), 0.0);
+	}
+
+	@Test
+	public void testDefaultSeed_ReproducibleWithSetSeed() {
+		StdRandom.setSeed(2420);
+		PercolationStats first = new PercolationStats(30, 20);
+		StdRandom.setSeed(2420);
+		PercolationStats again = new PercolationStats(30, 20);
+		
+		assertEquals(first.mean(), again.mean(), 0.0);
+	}
+
+	@Test
+	public void testPercolationProbability_EndsAndOrder() {
+		double[] p = { 1.0, 0.0, 0.55, 0.45, 0.7 };
+		double[] probability = PercolationStats.percolationProbability(20, p, 200, 2420);
+
+		assertEquals(1.0, probability[0], 0.0);
+		assertEquals(0.0, probability[1], 0.0);
+		//Each trial sweeps its order upwards, so the estimate cannot fall as p rises.
+		assertTrue(probability[3] <= probability[2]);
+		assertTrue(probability[2] <= probability[4]);
+		assertTrue(probability[3] < 0.5 && probability[4] > 0.5);
+	}
+
+	@Test
+	public void testPercolationProbability_Reproducible() {
+		double[] p = { 0.5, 0.6, 0.65 };
+		double[] first = PercolationStats.percolationProbability(16, p, 50, 7);
+		double[] second = PercolationStats.percolationProbability(16, p, 50, 7);
+		double[] sorted = PercolationStats.percolationProbability(16, new double[] { 0.65, 0.5, 0.6 }, 50, 7);
+
+		assertTrue(Arrays.equals(first, second));
+		assertEquals(first[0], sorted[1], 0.0);
+		assertEquals(first[2], sorted[0], 0.0);
+	}
+}
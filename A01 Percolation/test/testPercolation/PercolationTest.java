@@ -0,0 +1,390 @@
+package testPercolation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import a01.Percolation;
+import a01.Percolation.Storage;
+import a01.Xoroshiro128PlusPlus;
+
+/**
+ * J-unit tests on Percolation, mostly the backwash cases, cluster statistics, PACKED
+ * storage and the batch opens.
+ * 
+ * @author Kim Soto and Jeff Ostler
+ *
+ */
+public class PercolationTest {
+
+	/**
+	 * Opens a column from top to bottom plus a bottom site next to it that is
+	 * only connected to the column through the bottom row.
+	 */
+	private Percolation backwashGrid() {
+		Percolation p = new Percolation(3);
+		p.open(0, 0);
+		p.open(1, 0);
+		p.open(2, 0);
+		p.open(2, 2);
+		return p;
+	}
+
+	/**
+	 * Checks every site, the open count of every row and the percolates flag.
+	 */
+	private void assertSameGrid(String message, Percolation expected, Percolation actual, int N) {
+		for(int i = 0; i < N; i++) {
+			assertEquals(message + " row " + i, expected.openSitesInRow(i), actual.openSitesInRow(i));
+			for(int j = 0; j < N; j++) {
+				assertEquals(message + " site " + i + " " + j, expected.isOpen(i, j), actual.isOpen(i, j));
+				assertEquals(message + " site " + i + " " + j, expected.isFull(i, j), actual.isFull(i, j));
+			}
+		}
+		assertEquals(message, expected.percolates(), actual.percolates());
+	}
+
+	@Test
+	public void testNewGrid_NothingOpenOrFull() {
+		Percolation p = new Percolation(2);
+		
+		assertFalse(p.isOpen(0, 0));
+		assertFalse(p.isFull(0, 0));
+		assertFalse(p.percolates());
+	}
+
+	@Test
+	public void testOneByOne_PercolatesOnceOpen() {
+		Percolation p = new Percolation(1);
+		p.open(0, 0);
+		
+		assertTrue(p.isFull(0, 0));
+		assertTrue(p.percolates());
+	}
+
+	@Test
+	public void testTopRow_IsFull() {
+		Percolation p = new Percolation(3);
+		p.open(0, 1);
+		
+		assertTrue(p.isFull(0, 1));
+		assertFalse(p.percolates());
+	}
+
+	@Test
+	public void testColumn_Percolates() {
+		Percolation p = backwashGrid();
+		
+		assertTrue(p.percolates());
+		assertTrue(p.isFull(2, 0));
+	}
+
+	@Test
+	public void testBottomSite_NoBackwash() {
+		Percolation p = backwashGrid();
+		
+		assertTrue(p.isOpen(2, 2));
+		assertFalse(p.isFull(2, 2));
+	}
+
+	@Test
+	public void testBottomSiteOpenedFirst_NoBackwash() {
+		Percolation p = new Percolation(3);
+		p.open(2, 2);
+		p.open(2, 0);
+		p.open(1, 0);
+		p.open(0, 0);
+		
+		assertTrue(p.percolates());
+		assertFalse(p.isFull(2, 2));
+	}
+
+	@Test
+	public void testBottomSite_FullOnceJoined() {
+		Percolation p = backwashGrid();
+		p.open(2, 1);
+		
+		assertTrue(p.isFull(2, 2));
+	}
+
+	@Test
+	public void testBottomCluster_DoesNotPercolate() {
+		Percolation p = new Percolation(3);
+		p.open(2, 0);
+		p.open(2, 1);
+		p.open(1, 1);
+		
+		assertFalse(p.percolates());
+		assertFalse(p.isFull(1, 1));
+	}
+
+	@Test
+	public void testPathThroughSide_Percolates() {
+		Percolation p = new Percolation(3);
+		p.open(0, 2);
+		p.open(1, 2);
+		p.open(1, 1);
+		p.open(1, 0);
+		
+		assertFalse(p.percolates());
+		p.open(2, 0);
+		assertTrue(p.percolates());
+		assertTrue(p.isFull(2, 0));
+	}
+
+	@Test
+	public void testOpenTwice_StaysOpen() {
+		Percolation p = new Percolation(2);
+		p.open(0, 0);
+		p.open(0, 0);
+		
+		assertTrue(p.isOpen(0, 0));
+		assertFalse(p.percolates());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOpen_ColumnOutOfRange() {
+		new Percolation(3).open(0, 3);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testIsFull_RowOutOfRange() {
+		new Percolation(3).isFull(-1, 0);
+	}
+
+	@Test
+	public void testClusters_MergeAndCount() {
+		Percolation p = new Percolation(3, true);
+		p.open(0, 0);
+		p.open(0, 2);
+		p.open(2, 1);
+		
+		assertEquals(3, p.numberOfClusters());
+		assertEquals(3, p.clusterSizeCount(1));
+		p.open(0, 1);
+		assertEquals(2, p.numberOfClusters());
+		assertEquals(3, p.largestCluster());
+		assertEquals(1, p.clusterSizeCount(3));
+		assertEquals(1, p.clusterSizeCount(1));
+		assertEquals(0, p.spanningClusters());
+	}
+
+	@Test
+	public void testSpanningClusters_CountsSeparateColumns() {
+		Percolation p = new Percolation(3);
+		for(int i = 0; i < 3; i++) {
+			p.open(i, 0);
+			p.open(i, 2);
+		}
+		
+		assertEquals(2, p.spanningClusters());
+		assertEquals(6.0 / 9, 2 * p.largestClusterFraction(), 1e-12);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testClusterSizeCount_NeedsHistogram() {
+		new Percolation(3).clusterSizeCount(1);
+	}
+
+	@Test
+	public void testPacked_MatchesUnionFind() {
+		//70 crosses a word boundary, so runs span two longs per row.
+		for(int N : new int[] { 1, 5, 70 }) {
+			Xoroshiro128PlusPlus random = new Xoroshiro128PlusPlus(N);
+			Percolation uf = new Percolation(N);
+			Percolation packed = new Percolation(N, Storage.PACKED);
+			for(int step = 0; step < N * N; step++) {
+				int i = random.nextInt(N);
+				int j = random.nextInt(N);
+				uf.open(i, j);
+				packed.open(i, j);
+				assertEquals(uf.percolates(), packed.percolates());
+				if(step % N == 0) {
+					for(int r = 0; r < N; r++) {
+						for(int c = 0; c < N; c++) {
+							assertEquals(uf.isOpen(r, c), packed.isOpen(r, c));
+							assertEquals(uf.isFull(r, c), packed.isFull(r, c));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testPacked_SnakeFillsBackwards() {
+		//The path doubles back up, so the flood has to climb rows as well as descend.
+		Percolation p = new Percolation(5, Storage.PACKED);
+		p.open(4, 4);
+		p.open(3, 4);
+		p.open(2, 0);
+		p.open(2, 1);
+		p.open(2, 2);
+		p.open(2, 3);
+		p.open(2, 4);
+		p.open(1, 0);
+		p.open(3, 0);
+		assertFalse(p.isFull(3, 0));
+		p.open(0, 0);
+
+		assertTrue(p.isFull(3, 0));
+		assertTrue(p.isFull(2, 4));
+		assertTrue(p.percolates());
+	}
+
+	@Test
+	public void testRowQueries_SameInBothStorages() {
+		for(Storage storage : Storage.values()) {
+			Percolation p = new Percolation(130, storage);
+			p.open(7, 3);
+			p.open(7, 64);
+			p.open(7, 129);
+
+			assertEquals(3, p.openSitesInRow(7));
+			assertEquals(0, p.openSitesInRow(8));
+			assertEquals(3, p.nextOpenSite(7, 0));
+			assertEquals(64, p.nextOpenSite(7, 4));
+			assertEquals(129, p.nextOpenSite(7, 65));
+			assertEquals(-1, p.nextOpenSite(8, 0));
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testPacked_NoClusterStatistics() {
+		new Percolation(3, Storage.PACKED).numberOfClusters();
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testNextOpenSite_ColumnOutOfRange() {
+		new Percolation(3, Storage.PACKED).nextOpenSite(0, 3);
+	}
+
+	@Test
+	public void testBatchOpens_MatchSingleOpens() {
+		//70 and 130 leave padding in the last word of a row, 128 fills it exactly.
+		for(Storage storage : Storage.values()) {
+			for(int N : new int[] { 1, 5, 70, 128, 130 }) {
+				Xoroshiro128PlusPlus random = new Xoroshiro128PlusPlus(N);
+				Percolation single = new Percolation(N, storage);
+				Percolation batch = new Percolation(N, storage);
+				int[] sites = new int[N * N / 2 + 8];
+				for(int step = 0; step < 12; step++) {
+					String message = storage + " N " + N + " step " + step;
+					int kind = step % 3;
+					if(kind == 0 || kind == 1) {
+						//Sites repeat within and across batches, which open must ignore.
+						int from = random.nextInt(sites.length);
+						int to = from + random.nextInt(sites.length - from + 1);
+						for(int k = 0; k < sites.length; k++) {
+							sites[k] = random.nextInt(N * N);
+						}
+						for(int k = from; k < to; k++) {
+							single.open(sites[k] / N, sites[k] % N);
+						}
+						if(kind == 0) {
+							batch.open(Arrays.copyOfRange(sites, from, to));
+						}
+						else {
+							batch.open(sites, from, to);
+						}
+					}
+					else {
+						int i = random.nextInt(N);
+						long[] bits = new long[(N + 63) / 64];
+						for(int j = 0; j < N; j++) {
+							if(random.nextInt(3) == 0) {
+								bits[j / 64] |= 1L << j;
+								single.open(i, j);
+							}
+						}
+						batch.openRow(i, bits);
+					}
+					assertSameGrid(message, single, batch, N);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testOpenBatch_SiteOutOfRangeOpensNothing() {
+		for(Storage storage : Storage.values()) {
+			for(int[] sites : new int[][] { { 0, 3, 6, 9 }, { 4, -1 } }) {
+				Percolation p = new Percolation(3, storage);
+				try {
+					p.open(sites);
+					fail("Site out of range opened in " + storage);
+				}
+				catch(IndexOutOfBoundsException e) {
+					//Expected, the whole batch is checked first.
+				}
+				for(int i = 0; i < 3; i++) {
+					assertEquals(0, p.openSitesInRow(i));
+				}
+				assertFalse(p.percolates());
+			}
+		}
+	}
+
+	@Test
+	public void testOpenRange_OnlyRangeOpens() {
+		Percolation p = new Percolation(3);
+		//The site outside the range would be rejected if it were looked at.
+		p.open(new int[] { 99, 0, 3, 6 }, 1, 3);
+
+		assertTrue(p.isOpen(0, 0));
+		assertTrue(p.isOpen(1, 0));
+		assertFalse(p.isOpen(2, 0));
+		assertFalse(p.percolates());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOpenRange_FromAfterTo() {
+		new Percolation(3).open(new int[] { 0, 1, 2 }, 2, 1);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOpenRange_ToPastEnd() {
+		new Percolation(3).open(new int[] { 0 }, 0, 2);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOpenRange_NegativeFrom() {
+		new Percolation(3).open(new int[] { 0 }, -1, 1);
+	}
+
+	@Test
+	public void testOpenRow_BitPastColumnNOpensNothing() {
+		for(Storage storage : Storage.values()) {
+			Percolation p = new Percolation(70, storage);
+			//Column 69 is bit 5 of the second word, column 70 would be bit 6.
+			try {
+				p.openRow(0, new long[] { 1L, 1L << 5 | 1L << 6 });
+				fail("Column 70 opened in " + storage);
+			}
+			catch(IndexOutOfBoundsException e) {
+				//Expected, the padding is checked first.
+			}
+			assertEquals(0, p.openSitesInRow(0));
+
+			p.openRow(0, new long[] { 1L, 1L << 5 });
+			assertTrue(p.isOpen(0, 0));
+			assertTrue(p.isOpen(0, 69));
+			assertEquals(2, p.openSitesInRow(0));
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOpenRow_BitsTooShort() {
+		new Percolation(70).openRow(0, new long[1]);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOpenRow_RowOutOfRange() {
+		new Percolation(3, Storage.PACKED).openRow(3, new long[1]);
+	}
+}
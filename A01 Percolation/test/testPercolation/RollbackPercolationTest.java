@@ -0,0 +1,107 @@
+package testPercolation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import a01.Percolation;
+import a01.RollbackPercolation;
+import a01.Xoroshiro128PlusPlus;
+
+/**
+ * J-unit tests on RollbackPercolation, checked against a Percolation rebuilt from the
+ * sites that should still be open.
+ *
+ * @author Kim Soto and Jeff Ostler
+ *
+ */
+public class RollbackPercolationTest {
+
+	/**
+	 * Checks every site and the percolates flag against a fresh grid with the first
+	 * count sites of order open.
+	 */
+	private void assertSameAsRebuild(RollbackPercolation p, int N, int[] order, int count) {
+		Percolation expected = new Percolation(N);
+		for(int k = 0; k < count; k++) {
+			expected.open(order[k] / N, order[k] % N);
+		}
+		for(int i = 0; i < N; i++) {
+			for(int j = 0; j < N; j++) {
+				assertEquals(expected.isOpen(i, j), p.isOpen(i, j));
+				assertEquals("after " + count + " opens, site " + i + " " + j, expected.isFull(i, j), p.isFull(i, j));
+			}
+		}
+		assertEquals(expected.percolates(), p.percolates());
+	}
+
+	@Test
+	public void testRollback_MatchesRebuild() {
+		int N = 7;
+		Xoroshiro128PlusPlus random = new Xoroshiro128PlusPlus(2420);
+		RollbackPercolation p = new RollbackPercolation(N);
+		//order[0..count) holds the sites opened since the grid was empty, repeats included.
+		int[] order = new int[4 * N * N];
+		int count = 0;
+		int[] checkpoints = new int[order.length];
+		int[] counts = new int[order.length];
+		int depth = 0;
+		for(int step = 0; step < 2000; step++) {
+			int action = random.nextInt(10);
+			if(action == 0 && count < order.length) {
+				checkpoints[depth] = p.checkpoint();
+				counts[depth++] = count;
+			}
+			else if(action == 1 && depth > 0) {
+				//Checkpoints nest, so rolling back to one drops every later one.
+				depth = random.nextInt(depth);
+				p.rollback(checkpoints[depth]);
+				count = counts[depth];
+				assertSameAsRebuild(p, N, order, count);
+			}
+			else if(count < order.length) {
+				int site = random.nextInt(N * N);
+				p.open(site / N, site % N);
+				order[count++] = site;
+			}
+		}
+		assertSameAsRebuild(p, N, order, count);
+	}
+
+	@Test
+	public void testRollback_CountsOpenSites() {
+		RollbackPercolation p = new RollbackPercolation(3);
+		p.open(0, 0);
+		int checkpoint = p.checkpoint();
+		p.open(1, 0);
+		p.open(1, 0);
+		p.open(2, 0);
+		assertEquals(3, p.numberOfOpenSites());
+		assertTrue(p.percolates());
+
+		p.rollback(checkpoint);
+		assertEquals(1, p.numberOfOpenSites());
+		assertFalse(p.isOpen(1, 0));
+		assertFalse(p.percolates());
+		assertTrue(p.isFull(0, 0));
+	}
+
+	@Test
+	public void testRollback_ToEmptyAndReuse() {
+		RollbackPercolation p = new RollbackPercolation(2);
+		int empty = p.checkpoint();
+		p.open(0, 0);
+		p.open(1, 0);
+		assertTrue(p.percolates());
+
+		p.rollback(empty);
+		assertEquals(0, p.numberOfOpenSites());
+		assertFalse(p.isFull(0, 0));
+		p.open(0, 1);
+		p.open(1, 1);
+		assertTrue(p.percolates());
+		assertFalse(p.isOpen(0, 0));
+	}
+}
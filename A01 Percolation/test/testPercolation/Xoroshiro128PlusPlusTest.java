@@ -0,0 +1,81 @@
+package testPercolation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import a01.RandomSource;
+import a01.Xoroshiro128PlusPlus;
+
+/**
+ * J-unit tests on the Xoroshiro128PlusPlus generator and RandomSource's reductions.
+ * 
+ * @author Kim Soto and Jeff Ostler
+ *
+ */
+public class Xoroshiro128PlusPlusTest {
+
+	@Test
+	public void testNextInt_UnbiasedWithinBound() {
+		RandomSource random = new Xoroshiro128PlusPlus(1);
+		int[] counts = new int[3];
+		for(int k = 0; k < 300000; k++) {
+			counts[random.nextInt(3)]++;
+		}
+		
+		for(int count : counts) {
+			assertEquals(100000, count, 1500);
+		}
+	}
+
+	@Test
+	public void testNextInt_LargeBoundInRange() {
+		RandomSource random = new Xoroshiro128PlusPlus(2);
+		int bound = Integer.MAX_VALUE - 1;
+		for(int k = 0; k < 100000; k++) {
+			int r = random.nextInt(bound);
+			assertTrue(r >= 0 && r < bound);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNextInt_ZeroBound() {
+		new Xoroshiro128PlusPlus(3).nextInt(0);
+	}
+
+	@Test
+	public void testNextDouble_InUnitInterval() {
+		RandomSource random = new Xoroshiro128PlusPlus(4);
+		double sum = 0;
+		for(int k = 0; k < 100000; k++) {
+			double d = random.nextDouble();
+			assertTrue(d >= 0 && d < 1);
+			sum += d;
+		}
+		
+		assertEquals(0.5, sum / 100000, 0.01);
+	}
+
+	@Test
+	public void testSeed_SameStream() {
+		RandomSource a = new Xoroshiro128PlusPlus(2420);
+		RandomSource b = new Xoroshiro128PlusPlus(2420);
+		for(int k = 0; k < 100; k++) {
+			assertEquals(a.nextLong(), b.nextLong());
+		}
+	}
+
+	@Test
+	public void testSplit_DeterministicAndIndependent() {
+		RandomSource a = new Xoroshiro128PlusPlus(7);
+		RandomSource b = new Xoroshiro128PlusPlus(7);
+		RandomSource splitA = a.split();
+		RandomSource splitB = b.split();
+		
+		assertEquals(splitA.nextLong(), splitB.nextLong());
+		assertNotEquals(a.nextLong(), splitA.nextLong());
+		assertNotEquals(a.split().nextLong(), a.split().nextLong());
+	}
+}
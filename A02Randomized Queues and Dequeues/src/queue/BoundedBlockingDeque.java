@@ -0,0 +1,412 @@
+package queue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A Deque of fixed capacity shared between producer and consumer threads. Items live
+ * in a circular array guarded by one lock: producers wait while it is full and
+ * consumers wait while it is empty, so a slow consumer pushes back on producers
+ * instead of letting the deque grow.
+ * <p>
+ * drainTo and addAllLast move a whole batch under a single lock acquisition, so a
+ * consumer woken once can take hundreds of items and a producer can hand over a batch
+ * without waking consumers item by item.
+ *
+ * @author Kim Soto, Chris Christoffersen
+ *
+ * @param <Item>
+ */
+public class BoundedBlockingDeque<Item> {
+	//FIELDS
+	private final Object[] items;
+	private int head; //Index of the first item.
+	private int size;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+
+	/**
+	 * Constructs an empty deque holding at most capacity items.
+	 * @param capacity
+	 */
+	public BoundedBlockingDeque(int capacity) {
+		if(capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		items = new Object[capacity];
+	}
+
+	/**
+	 * Checks if the deque is empty.
+	 * @return True if deque is empty, false if it contains elements.
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Returns the number of items in the deque.
+	 * @return int value of size.
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return size;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns how many more items fit before producers have to wait.
+	 * @return Free slots.
+	 */
+	public int remainingCapacity() {
+		lock.lock();
+		try {
+			return items.length - size;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Inserts an item at the front, waiting for space if the deque is full.
+	 * @param item
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void putFirst(Item item) throws InterruptedException {
+		checkItem(item);
+		lock.lockInterruptibly();
+		try {
+			while(size == items.length) {
+				notFull.await();
+			}
+			linkFirst(item);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Inserts an item at the end, waiting for space if the deque is full.
+	 * @param item
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void putLast(Item item) throws InterruptedException {
+		checkItem(item);
+		lock.lockInterruptibly();
+		try {
+			while(size == items.length) {
+				notFull.await();
+			}
+			linkLast(item);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Inserts an item at the front if there is space.
+	 * @param item
+	 * @return True if inserted, false if the deque was full.
+	 */
+	public boolean offerFirst(Item item) {
+		checkItem(item);
+		lock.lock();
+		try {
+			if(size == items.length) {
+				return false;
+			}
+			linkFirst(item);
+			return true;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Inserts an item at the end if there is space.
+	 * @param item
+	 * @return True if inserted, false if the deque was full.
+	 */
+	public boolean offerLast(Item item) {
+		checkItem(item);
+		lock.lock();
+		try {
+			if(size == items.length) {
+				return false;
+			}
+			linkLast(item);
+			return true;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Inserts every item of the batch at the end, in iteration order. As many as fit
+	 * are added each time the lock is held, waiting for space between rounds, so a
+	 * batch larger than the capacity is fed through as consumers make room.
+	 * @param batch items to add, none of them null
+	 * @throws InterruptedException if interrupted while waiting; items added before the
+	 * interrupt stay in the deque
+	 */
+	public void addAllLast(Collection<? extends Item> batch) throws InterruptedException {
+		for(Item item : batch) {
+			checkItem(item);
+		}
+		Iterator<? extends Item> it = batch.iterator();
+		while(it.hasNext()) {
+			lock.lockInterruptibly();
+			try {
+				while(size == items.length) {
+					notFull.await();
+				}
+				int added = 0;
+				while(size < items.length && it.hasNext()) {
+					items[(head + size) % items.length] = it.next();
+					size++;
+					added++;
+				}
+				signal(notEmpty, added);
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Deletes and returns the item at the front, waiting for one if the deque is empty.
+	 * @return First item in deque.
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Item takeFirst() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while(size == 0) {
+				notEmpty.await();
+			}
+			return unlinkFirst();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Deletes and returns the item at the end, waiting for one if the deque is empty.
+	 * @return Last item in deque.
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Item takeLast() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while(size == 0) {
+				notEmpty.await();
+			}
+			return unlinkLast();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Deletes and returns the item at the front if there is one.
+	 * @return First item in deque, or null if it is empty.
+	 */
+	public Item pollFirst() {
+		lock.lock();
+		try {
+			return size == 0 ? null : unlinkFirst();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Deletes and returns the item at the end if there is one.
+	 * @return Last item in deque, or null if it is empty.
+	 */
+	public Item pollLast() {
+		lock.lock();
+		try {
+			return size == 0 ? null : unlinkLast();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until the deque is not empty, then moves up to max items from the front
+	 * into the collection, in order, under one lock acquisition. If the collection throws,
+	 * the item it rejected and those after it stay in the deque.
+	 * @param collection destination
+	 * @param max largest number of items to move
+	 * @return Number of items moved, at least 1 unless max is 0.
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public int drainTo(Collection<? super Item> collection, int max) throws InterruptedException {
+		if(max < 0) {
+			throw new IllegalArgumentException("max must not be negative: " + max);
+		}
+		if(max == 0) {
+			return 0;
+		}
+		lock.lockInterruptibly();
+		try {
+			while(size == 0) {
+				notEmpty.await();
+			}
+			int n = Math.min(max, size);
+			int moved = 0;
+			try {
+				//add before unlinking, so an item the collection rejects stays in the deque
+				while(moved < n) {
+					@SuppressWarnings("unchecked")
+					Item item = (Item) items[head];
+					collection.add(item);
+					items[head] = null; //prevent loitering
+					head = (head + 1) % items.length;
+					size--;
+					moved++;
+				}
+			}
+			finally {
+				signal(notFull, moved);
+			}
+			return n;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private void linkFirst(Item item) {
+		head = (head - 1 + items.length) % items.length;
+		items[head] = item;
+		size++;
+		notEmpty.signal();
+	}
+
+	private void linkLast(Item item) {
+		items[(head + size) % items.length] = item;
+		size++;
+		notEmpty.signal();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Item unlinkFirst() {
+		Item item = (Item) items[head];
+		items[head] = null; //prevent loitering
+		head = (head + 1) % items.length;
+		size--;
+		notFull.signal();
+		return item;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Item unlinkLast() {
+		int last = (head + size - 1) % items.length;
+		Item item = (Item) items[last];
+		items[last] = null; //prevent loitering
+		size--;
+		notFull.signal();
+		return item;
+	}
+
+	/**
+	 * Wakes one waiter for a single slot or item, every waiter for more.
+	 */
+	private static void signal(Condition condition, int count) {
+		if(count == 1) {
+			condition.signal();
+		}
+		else if(count > 1) {
+			condition.signalAll();
+		}
+	}
+
+	private static void checkItem(Object item) {
+		//If client attempts to add a null item.
+		if(item == null) {
+			throw new NullPointerException("Item is null!");
+		}
+	}
+
+	/**
+	 * Unit testing.
+	 * @param args
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		BoundedBlockingDeque<Integer> deque = new BoundedBlockingDeque<>(64);
+		int total = 100_000;
+
+		Thread producer = new Thread(() -> {
+			List<Integer> batch = new ArrayList<>();
+			try {
+				for(int i = 0; i < total; i++) {
+					batch.add(i);
+					if(batch.size() == 100) {
+						deque.addAllLast(batch);
+						batch.clear();
+					}
+				}
+				deque.addAllLast(batch);
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		producer.start();
+
+		//consumer drains in batches and checks the order
+		List<Integer> out = new ArrayList<>();
+		int wakeUps = 0;
+		while(out.size() < total) {
+			deque.drainTo(out, 500);
+			wakeUps++;
+		}
+		producer.join();
+		boolean inOrder = true;
+		for(int i = 0; i < total; i++) {
+			inOrder &= out.get(i) == i;
+		}
+		System.out.printf("received: %d  in order: %b  drains: %d%n", out.size(), inOrder, wakeUps);
+
+		//testing other methods
+		BoundedBlockingDeque<Integer> small = new BoundedBlockingDeque<>(2);
+		small.offerLast(1);
+		small.offerFirst(0);
+		System.out.println("\noffer to full deque: " + small.offerLast(2));
+
+		//a collection that rejects the second item leaves it in the deque
+		try {
+			small.drainTo(new ArrayBlockingQueue<Integer>(1), 2);
+		}
+		catch(IllegalStateException e) {
+			System.out.printf("drainTo rejected: %s  left: %d  offer now: %b%n", e.getMessage(), small.size(),
+					small.offerLast(2));
+		}
+		deque.putFirst(1);
+		deque.putLast(2);
+		System.out.printf("takeFirst: %d  takeLast: %d  pollFirst: %s%n", deque.takeFirst(), deque.takeLast(),
+				deque.pollFirst());
+	}
+}
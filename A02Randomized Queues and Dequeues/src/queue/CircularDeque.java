@@ -0,0 +1,193 @@
+package queue;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The Deque API backed by a circular array instead of linked nodes.
+ * Capacity is always a power of two so positions wrap with a mask, the array doubles
+ * when full and halves when a quarter full, so every operation is O(1) amortised at
+ * both ends and adding an item allocates nothing.
+ * 
+ * @author Kim Soto, Chris Christoffersen
+ *
+ * @param <Item>
+ */
+public class CircularDeque<Item> implements Iterable<Item> {
+	private static final int MIN_CAPACITY = 8;
+
+	//FIELDS
+	private Item[] items;
+	private int head; //Index of the first item.
+	private int size;
+	private int modCount; //Changes since creation, so iterators can fail fast.
+
+	/**
+	 * Constructs an empty deque.
+	 */
+	@SuppressWarnings("unchecked")
+	public CircularDeque() {
+		items = (Item[]) new Object[MIN_CAPACITY];
+	}
+
+	/**
+	 * Checks if the deque is empty.
+	 * @return True if deque is empty, false if it contains elements.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the number of items in the deque.
+	 * @return int value of size.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Inserts an item at the front of queue.
+	 * @param item
+	 */
+	public void addFirst(Item item) {
+		//If client attempts to add a null item.
+		if(item == null) {
+			throw new NullPointerException("Item is null!");
+		}
+		if(size == items.length) {
+			resize(2 * items.length);
+		}
+		head = (head - 1) & (items.length - 1);
+		items[head] = item;
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Inserts an item at the end of queue.
+	 * @param item
+	 */
+	public void addLast(Item item) {
+		//If client attempts to add a null item.
+		if(item == null) {
+			throw new NullPointerException("Item is null!");
+		}
+		if(size == items.length) {
+			resize(2 * items.length);
+		}
+		items[(head + size) & (items.length - 1)] = item;
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Deletes and returns an item at the front.
+	 * @return First item in queue.
+	 */
+	public Item removeFirst() {
+		//If client attempts to remove from an empty deque.
+		if(isEmpty()) {
+			throw new NoSuchElementException("Cannot remove further, deque is empty!");
+		}
+		Item item = items[head];
+		items[head] = null; //prevent loitering
+		head = (head + 1) & (items.length - 1);
+		size--;
+		modCount++;
+		shrinkIfSparse();
+		return item;
+	}
+
+	/**
+	 * Deletes and returns an item at the end.
+	 * @return Last item in queue.
+	 */
+	public Item removeLast() {
+		//If client attempts to remove from an empty deque.
+		if(isEmpty()) {
+			throw new NoSuchElementException("Cannot remove further, deque is empty!");
+		}
+		int last = (head + size - 1) & (items.length - 1);
+		Item item = items[last];
+		items[last] = null; //prevent loitering
+		size--;
+		modCount++;
+		shrinkIfSparse();
+		return item;
+	}
+
+	/**
+	 * Returns an iterator over items in order from front to end.
+	 */
+	public Iterator<Item> iterator() {
+		return new CircularDequeIterator();
+	}
+
+	private class CircularDequeIterator implements Iterator<Item> {
+		private int index;
+		private final int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			return index < size;
+		}
+
+		@Override
+		public Item next() {
+			if(expectedModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return items[(head + index++) & (items.length - 1)];
+		}
+	}
+
+	/**
+	 * Half size of array when 1/4 full.
+	 */
+	private void shrinkIfSparse() {
+		if(items.length > MIN_CAPACITY && size == items.length / 4) {
+			resize(items.length / 2);
+		}
+	}
+
+	/**
+	 * Copies the items, front first, into an array of capacity n.
+	 * @param n new capacity, a power of two
+	 */
+	@SuppressWarnings("unchecked")
+	private void resize(int n) {
+		Item[] newItems = (Item[]) new Object[n];
+		int firstPart = Math.min(size, items.length - head);
+		System.arraycopy(items, head, newItems, 0, firstPart);
+		System.arraycopy(items, 0, newItems, firstPart, size - firstPart);
+		items = newItems;
+		head = 0;
+	}
+
+	/**
+	 * Unit testing.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		CircularDeque<String> deque = new CircularDeque<>();
+
+		deque.addFirst("a");
+		deque.addFirst("is");
+		deque.addFirst("this");
+		deque.addLast("test");
+		deque.addLast(":)");
+		System.out.println("testing removeFirst: " + deque.removeFirst());
+		System.out.println("testing removeLast: " + deque.removeLast());
+
+		System.out.println("\ntesting iterator:");
+		for(String el: deque) {
+			System.out.print(el + " ");
+		}
+		System.out.printf("%nis Empty: %b  size: %d%n", deque.isEmpty(), deque.size());
+	}
+}
@@ -0,0 +1,255 @@
+package queue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A RandomizedQueue that many threads can use at once. Items are spread over a fixed
+ * number of shards, each an array with its own lock, so threads working on different
+ * shards never wait on each other. Within a shard removal is the same swap-with-last
+ * as RandomizedQueue.
+ * <p>
+ * Randomness: enqueue places each item in a uniformly random shard, trying another if
+ * that one's lock is busy. Dequeue starts at a uniformly random shard, takes the first
+ * non-empty one it finds, and removes a uniformly random item from it. When the shards
+ * hold equal numbers of items every item is equally likely. Otherwise an item in a
+ * shard of s items, with m shards in all, is picked with probability about 1/(m s), so
+ * items in small shards come out somewhat early. Random placement keeps the shards
+ * close in size while the queue is large. When the queue is nearly empty, dequeue is
+ * only approximately uniform.
+ * <p>
+ * size and isEmpty are snapshots that other threads may already have changed.
+ * Iterators are weakly consistent: they copy one shard at a time, so they never throw
+ * ConcurrentModificationException and may or may not see concurrent changes.
+ *
+ * @author Kim Soto, Chris Christoffersen
+ *
+ * @param <Item>
+ */
+public class ConcurrentRandomizedQueue<Item> implements Iterable<Item> {
+	//FIELDS
+	private final Shard[] shards;
+	private final int mask;
+
+	/**
+	 * Constructs an empty queue with two shards per available processor.
+	 */
+	public ConcurrentRandomizedQueue() {
+		this(2 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs an empty queue with at least the given number of shards, rounded up to
+	 * a power of two.
+	 * @param shardCount
+	 */
+	public ConcurrentRandomizedQueue(int shardCount) {
+		if(shardCount < 1 || shardCount > 1 << 16) {
+			throw new IllegalArgumentException("Shard count must be between 1 and 65536: " + shardCount);
+		}
+		int n = Integer.highestOneBit(shardCount);
+		if(n < shardCount) {
+			n <<= 1;
+		}
+		shards = new Shard[n];
+		for(int i = 0; i < n; i++) {
+			shards[i] = new Shard();
+		}
+		mask = n - 1;
+	}
+
+	/**
+	 * Checks if the queue looks empty.
+	 * @return True if no shard held an item when checked.
+	 */
+	public boolean isEmpty() {
+		for(Shard shard : shards) {
+			if(shard.size > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of items on the queue, as a snapshot that may already be stale.
+	 * @return
+	 */
+	public int size() {
+		long size = 0;
+		for(Shard shard : shards) {
+			size += shard.size;
+		}
+		return (int) Math.min(size, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Adds item into queue.
+	 * @param item
+	 */
+	public void enqueue(Item item) {
+		//If client attempts to add a null item.
+		if(item == null) {
+			throw new NullPointerException("Item is null!");
+		}
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Shard shard;
+		int attempt = 0;
+		//Up to three random shards without waiting, then wait for the last one tried.
+		do {
+			shard = shards[random.nextInt() & mask];
+		} while(!shard.tryLock() && ++attempt < 3);
+		if(attempt == 3) {
+			shard.lock();
+		}
+		try {
+			shard.add(item);
+		}
+		finally {
+			shard.unlock();
+		}
+	}
+
+	/**
+	 * Deletes and returns a random item.
+	 * @return
+	 */
+	public Item dequeue() {
+		Item item = poll();
+		if(item == null) {
+			throw new NoSuchElementException();
+		}
+		return item;
+	}
+
+	/**
+	 * Deletes and returns a random item, or returns null if every shard was empty when
+	 * visited.
+	 * @return
+	 */
+	public Item poll() {
+		int start = ThreadLocalRandom.current().nextInt() & mask;
+		//First pass skips shards that are busy, the second waits for them.
+		for(int pass = 0; pass < 2; pass++) {
+			for(int i = 0; i <= mask; i++) {
+				Shard shard = shards[(start + i) & mask];
+				if(shard.size == 0) {
+					continue;
+				}
+				if(pass == 0) {
+					if(!shard.tryLock()) {
+						continue;
+					}
+				}
+				else {
+					shard.lock();
+				}
+				try {
+					if(shard.size > 0) {
+						return shard.remove();
+					}
+				}
+				finally {
+					shard.unlock();
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a random item, but does not delete it.
+	 * @return
+	 */
+	public Item sample() {
+		int start = ThreadLocalRandom.current().nextInt() & mask;
+		for(int i = 0; i <= mask; i++) {
+			Shard shard = shards[(start + i) & mask];
+			if(shard.size == 0) {
+				continue;
+			}
+			shard.lock();
+			try {
+				if(shard.size > 0) {
+					return shard.get(ThreadLocalRandom.current().nextInt(shard.size));
+				}
+			}
+			finally {
+				shard.unlock();
+			}
+		}
+		throw new NoSuchElementException();
+	}
+
+	/**
+	 * Returns an independent iterator over a snapshot of the items in random order.
+	 */
+	public Iterator<Item> iterator() {
+		List<Item> snapshot = new ArrayList<>();
+		for(Shard shard : shards) {
+			shard.lock();
+			try {
+				for(int i = 0; i < shard.size; i++) {
+					snapshot.add(shard.get(i));
+				}
+			}
+			finally {
+				shard.unlock();
+			}
+		}
+		Collections.shuffle(snapshot, ThreadLocalRandom.current());
+		return Collections.unmodifiableList(snapshot).iterator();
+	}
+
+	/**
+	 * A resizing array of items guarded by its own lock. Only size is read without the
+	 * lock, as a hint for skipping empty shards.
+	 */
+	@SuppressWarnings("serial")
+	private static final class Shard extends ReentrantLock {
+		private Object[] items = new Object[2];
+		private volatile int size;
+
+		void add(Object item) {
+			//double size of array
+			if(size == items.length) {
+				resize(2 * items.length);
+			}
+			items[size] = item;
+			size++;
+		}
+
+		@SuppressWarnings("unchecked")
+		<Item> Item get(int i) {
+			return (Item) items[i];
+		}
+
+		@SuppressWarnings("unchecked")
+		<Item> Item remove() {
+			int n = ThreadLocalRandom.current().nextInt(size);
+			int last = size - 1;
+			Object random = items[n];
+			items[n] = items[last];
+			items[last] = null; //prevent loitering
+			size = last;
+
+			//half size of array when 1/4 full
+			if(last >= 1 && last == items.length / 4) {
+				resize(items.length / 2);
+			}
+			return (Item) random;
+		}
+
+		private void resize(int n) {
+			Object[] newItems = new Object[n];
+			System.arraycopy(items, 0, newItems, 0, size);
+			items = newItems;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package queue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Times a RandomizedQueue behind one lock against ConcurrentRandomizedQueue as the
+ * number of threads grows. Every thread repeatedly enqueues an item and dequeues one,
+ * so the queue stays near its prefilled size and every operation contends for it.
+ * Throughput is reported in millions of operations per second over all threads.
+ *
+ * @author Kim Soto, Chris Christoffersen
+ *
+ */
+public class ConcurrentRandomizedQueueBenchmark {
+	private static final int OPERATIONS = 1 << 20; //Per run, split over the threads.
+	private static final int PREFILL = 10_000;
+	private static final int RUNS = 5;
+
+	private static volatile long sink; //Keeps results alive so the JIT cannot drop the work.
+
+	/**
+	 * A queue under test: one enqueue then one dequeue, returning the dequeued item.
+	 */
+	private interface Pair {
+		int enqueueDequeue(int item);
+	}
+
+	/**
+	 * Runs the workload for each thread count given on the command line.
+	 * @param args thread counts, defaults to 1 2 4 8 16 32 64
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int[] threadCounts = {1, 2, 4, 8, 16, 32, 64};
+		if(args.length > 0) {
+			threadCounts = new int[args.length];
+			for(int i = 0; i < args.length; i++) {
+				threadCounts[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		System.out.printf("%8s %16s %16s%n", "threads", "locked Mops/s", "sharded Mops/s");
+		for(int threads : threadCounts) {
+			double locked = 0;
+			double sharded = 0;
+			//First pass warms up both paths, the best of the rest is reported.
+			for(int run = 0; run <= RUNS; run++) {
+				RandomizedQueue<Integer> single = new RandomizedQueue<>();
+				ConcurrentRandomizedQueue<Integer> concurrent = new ConcurrentRandomizedQueue<>();
+				for(int i = 0; i < PREFILL; i++) {
+					single.enqueue(i);
+					concurrent.enqueue(i);
+				}
+				double lockedRate = run(threads, item -> {
+					synchronized(single) {
+						single.enqueue(item);
+						return single.dequeue();
+					}
+				});
+				double shardedRate = run(threads, item -> {
+					concurrent.enqueue(item);
+					return concurrent.dequeue();
+				});
+				if(run > 0) {
+					locked = Math.max(locked, lockedRate);
+					sharded = Math.max(sharded, shardedRate);
+				}
+			}
+			System.out.printf("%8d %16.2f %16.2f%n", threads, locked, sharded);
+		}
+	}
+
+	/**
+	 * Starts the threads together and waits for them all to finish.
+	 * @return Millions of operations per second, counting enqueue and dequeue separately.
+	 */
+	private static double run(int threads, Pair queue) throws InterruptedException {
+		int pairsPerThread = OPERATIONS / 2 / threads;
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(threads);
+		for(int t = 0; t < threads; t++) {
+			Thread worker = new Thread(() -> {
+				int item = ThreadLocalRandom.current().nextInt();
+				long sum = 0;
+				try {
+					start.await();
+					for(int i = 0; i < pairsPerThread; i++) {
+						sum += queue.enqueueDequeue(item + i);
+					}
+				}
+				catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				finally {
+					sink += sum;
+					done.countDown();
+				}
+			});
+			worker.start();
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		done.await();
+		long elapsed = System.nanoTime() - begin;
+		return 2.0 * pairsPerThread * threads / elapsed * 1000;
+	}
+}
@@ -111,8 +111,8 @@ public class Deque<Item> implements Iterable<Item> {
 			return current.itemNode;
 		}
 		
-		current = head.next;
-		head = current;
+		current = head;
+		head = current.next;
 		itemsInQueue--;
 
 		return current.itemNode;
@@ -139,11 +139,12 @@ public class Deque<Item> implements Iterable<Item> {
 		while(current.next != tail) {
 			current = current.next;
 		}
+		Item item = tail.itemNode;
 		current.next = null;
 		tail = current;
 		itemsInQueue--;
 		
-		return current.itemNode;
+		return item;
 	}
 	
 	/**
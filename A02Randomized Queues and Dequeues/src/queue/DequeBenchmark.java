@@ -0,0 +1,103 @@
+package queue;
+
+import java.util.SplittableRandom;
+
+/**
+ * Times the linked Deque against CircularDeque on the same mixed workload: a random
+ * sequence of addFirst, addLast, removeFirst and removeLast that keeps the deque near
+ * a target size. Both deques must return the same items; the checksum printed with
+ * each row shows they did.
+ * 
+ * @author Kim Soto, Chris Christoffersen
+ *
+ */
+public class DequeBenchmark {
+	private static final int OPERATIONS = 200_000;
+	private static final int RUNS = 5;
+
+	private static volatile long sink; //Keeps results alive so the JIT cannot drop the work.
+
+	/**
+	 * Runs the workload for each target size given on the command line.
+	 * @param args target sizes, defaults to 10 100 1000 10000
+	 */
+	public static void main(String[] args) {
+		int[] sizes = {10, 100, 1000, 10000};
+		if(args.length > 0) {
+			sizes = new int[args.length];
+			for(int i = 0; i < args.length; i++) {
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		System.out.printf("%8s %14s %14s %12s%n", "size", "linked ns/op", "circular ns/op", "checksum");
+		for(int size : sizes) {
+			byte[] ops = workload(size, new SplittableRandom(size));
+			long linked = Long.MAX_VALUE;
+			long circular = Long.MAX_VALUE;
+			long checksum = 0;
+			//First pass warms up both paths, the best of the rest is reported.
+			for(int run = 0; run <= RUNS; run++) {
+				long start = System.nanoTime();
+				long linkedSum = runLinked(ops);
+				long mid = System.nanoTime();
+				long circularSum = runCircular(ops);
+				long end = System.nanoTime();
+				if(linkedSum != circularSum) {
+					throw new IllegalStateException("Deques disagree at size " + size);
+				}
+				checksum = linkedSum;
+				if(run > 0) {
+					linked = Math.min(linked, mid - start);
+					circular = Math.min(circular, end - mid);
+				}
+			}
+			sink += checksum;
+			System.out.printf("%8d %14.1f %14.1f %12d%n", size, (double) linked / ops.length,
+					(double) circular / ops.length, checksum);
+		}
+	}
+
+	/**
+	 * Random operations: 0 addFirst, 1 addLast, 2 removeFirst, 3 removeLast. Adds are
+	 * favoured below the target size and removes above it.
+	 */
+	private static byte[] workload(int target, SplittableRandom rng) {
+		byte[] ops = new byte[OPERATIONS];
+		int size = 0;
+		for(int k = 0; k < ops.length; k++) {
+			boolean add = size == 0 || rng.nextInt(2 * target) >= size;
+			ops[k] = (byte) ((add ? 0 : 2) + rng.nextInt(2));
+			size += add ? 1 : -1;
+		}
+		return ops;
+	}
+
+	private static long runLinked(byte[] ops) {
+		Deque<Integer> deque = new Deque<>();
+		long sum = 0;
+		for(int k = 0; k < ops.length; k++) {
+			switch(ops[k]) {
+			case 0: deque.addFirst(k); break;
+			case 1: deque.addLast(k); break;
+			case 2: sum = 31 * sum + deque.removeFirst(); break;
+			default: sum = 31 * sum + deque.removeLast(); break;
+			}
+		}
+		return sum;
+	}
+
+	private static long runCircular(byte[] ops) {
+		CircularDeque<Integer> deque = new CircularDeque<>();
+		long sum = 0;
+		for(int k = 0; k < ops.length; k++) {
+			switch(ops[k]) {
+			case 0: deque.addFirst(k); break;
+			case 1: deque.addLast(k); break;
+			case 2: sum = 31 * sum + deque.removeFirst(); break;
+			default: sum = 31 * sum + deque.removeLast(); break;
+			}
+		}
+		return sum;
+	}
+}
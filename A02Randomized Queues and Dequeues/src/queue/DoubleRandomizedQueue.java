@@ -0,0 +1,213 @@
+package queue;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * A RandomizedQueue of double values stored unboxed in a double[], with the same
+ * swap-with-last removal, the same resizing, the same pluggable RandomSource and the
+ * same lazily shuffled, fail-fast iterator. Use nextDouble on the iterator to read
+ * without boxing.
+ * 
+ * @author Kim Soto, Chris Christoffersen
+ *
+ */
+public class DoubleRandomizedQueue implements Iterable<Double> {
+	//FIELDS
+	private double[] itemArray;
+	private int size;
+	private int modCount; //Changes since creation, so iterators can fail fast.
+	private final RandomSource rng;
+
+	/**
+	 * Constructs an empty randomized queue drawing from a Xoroshiro128PlusPlus seeded
+	 * from StdRandom, so StdRandom.setSeed still makes runs reproducible.
+	 */
+	public DoubleRandomizedQueue() {
+		this(new Xoroshiro128PlusPlus((long) (StdRandom.uniform() * 0x1.0p53)));
+	}
+
+	/**
+	 * Constructs an empty randomized queue drawing from the given source. The queue and
+	 * its iterators advance it, so it should not be shared between threads.
+	 * @param rng
+	 */
+	public DoubleRandomizedQueue(RandomSource rng) {
+		if(rng == null) {
+			throw new NullPointerException("Random source is null!");
+		}
+		this.rng = rng;
+		itemArray = new double[2];
+		size = 0;
+	}
+
+	/**
+	 * Checks if the queue is empty.
+	 * @return True if queue is empty, false if it contains elements.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the number of items on the queue.
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds item into queue.
+	 * @param item
+	 */
+	public void enqueue(double item) {
+		//double size of array
+		if(size == itemArray.length) {
+			resize(2 * itemArray.length);
+		}
+		itemArray[size++] = item;
+		modCount++;
+	}
+
+	/**
+	 * Deletes and returns a random item.
+	 * @return
+	 */
+	public double dequeue() {
+		if(isEmpty()) {
+			throw new NoSuchElementException();
+		}
+
+		int n = rng.nextInt(size);
+		double random = itemArray[n];
+		itemArray[n] = itemArray[--size];
+		modCount++;
+
+		//half size of array when 1/4 full
+		if(size >= 1 && size == itemArray.length / 4) {
+			resize(itemArray.length / 2);
+		}
+
+		return random;
+	}
+
+	/**
+	 * Returns a random item, but does not delete it.
+	 * @return
+	 */
+	public double sample() {
+		if(isEmpty()) {
+			throw new NoSuchElementException();
+		}
+
+		return itemArray[rng.nextInt(size)];
+	}
+
+	/**
+	 * Returns an iterator over items in random order. The order is drawn lazily, as
+	 * RandomizedQueue's is, and the iterator fails fast if the queue is changed while
+	 * it is in use.
+	 */
+	@Override
+	public PrimitiveIterator.OfDouble iterator() {
+		return new DoubleRandomizedQueueIterator();
+	}
+
+	private class DoubleRandomizedQueueIterator implements PrimitiveIterator.OfDouble {
+		private final ShuffledIndices order = new ShuffledIndices(size, rng);
+		private final int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			return order.hasNext();
+		}
+
+		@Override
+		public double nextDouble() {
+			if(expectedModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			return itemArray[order.next()];
+		}
+	}
+
+	/**
+	 * Resize array to avoid thrashing.
+	 * @param n
+	 */
+	private void resize(int n) {
+		itemArray = Arrays.copyOf(itemArray, n);
+	}
+
+	/**
+	 * Unit testing.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		int n = 1000;
+		DoubleRandomizedQueue first = new DoubleRandomizedQueue(new Xoroshiro128PlusPlus(2420));
+		DoubleRandomizedQueue second = new DoubleRandomizedQueue(new Xoroshiro128PlusPlus(2420));
+		for(int i = 0; i < n; i++) {
+			first.enqueue(i);
+			second.enqueue(i);
+		}
+
+		//the iterator and dequeue should each give every item exactly once, in the
+		//same order for queues with the same seed
+		double[] iterated = new double[n];
+		int count = 0;
+		boolean same = true;
+		PrimitiveIterator.OfDouble other = second.iterator();
+		for(PrimitiveIterator.OfDouble it = first.iterator(); it.hasNext(); count++) {
+			iterated[count] = it.nextDouble();
+			same &= iterated[count] == other.nextDouble();
+		}
+		Arrays.sort(iterated);
+		double[] dequeued = new double[n];
+		for(int i = 0; i < n; i++) {
+			dequeued[i] = first.dequeue();
+			same &= dequeued[i] == second.dequeue();
+		}
+		Arrays.sort(dequeued);
+		double[] expected = new double[n];
+		for(int i = 0; i < n; i++) {
+			expected[i] = i;
+		}
+		System.out.printf("iterator gives every item once: %b%n", Arrays.equals(iterated, expected));
+		System.out.printf("dequeue gives every item once: %b%n", Arrays.equals(dequeued, expected));
+		System.out.printf("seeded queues agree: %b  is Empty: %b  size: %d%n", same, first.isEmpty(),
+				first.size());
+
+		//an iterator must fail fast once the queue changes
+		first.enqueue(1);
+		first.enqueue(2);
+		PrimitiveIterator.OfDouble open = first.iterator();
+		open.nextDouble();
+		first.enqueue(3);
+		try {
+			open.nextDouble();
+			System.out.println("\nchanged queue: no exception");
+		}
+		catch(ConcurrentModificationException e) {
+			System.out.println("\nchanged queue: ConcurrentModificationException");
+		}
+		System.out.println("test sample: " + first.sample());
+
+		DoubleRandomizedQueue empty = new DoubleRandomizedQueue();
+		try {
+			empty.dequeue();
+		}
+		catch(NoSuchElementException e) {
+			System.out.println("dequeue on empty queue: NoSuchElementException");
+		}
+	}
+}
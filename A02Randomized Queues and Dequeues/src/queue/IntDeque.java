@@ -0,0 +1,218 @@
+package queue;
+
+import java.util.ArrayDeque;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A CircularDeque of int values stored unboxed in an int[] ring buffer, so adding
+ * and removing never allocates a wrapper object. Use nextInt on the iterator to read
+ * without boxing.
+ * 
+ * @author Kim Soto, Chris Christoffersen
+ *
+ */
+public class IntDeque implements Iterable<Integer> {
+	private static final int MIN_CAPACITY = 8;
+
+	//FIELDS
+	private int[] items;
+	private int head; //Index of the first item.
+	private int size;
+	private int modCount; //Changes since creation, so iterators can fail fast.
+
+	/**
+	 * Constructs an empty deque.
+	 */
+	public IntDeque() {
+		items = new int[MIN_CAPACITY];
+	}
+
+	/**
+	 * Checks if the deque is empty.
+	 * @return True if deque is empty, false if it contains elements.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the number of items in the deque.
+	 * @return int value of size.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Inserts an item at the front of queue.
+	 * @param item
+	 */
+	public void addFirst(int item) {
+		if(size == items.length) {
+			resize(2 * items.length);
+		}
+		head = (head - 1) & (items.length - 1);
+		items[head] = item;
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Inserts an item at the end of queue.
+	 * @param item
+	 */
+	public void addLast(int item) {
+		if(size == items.length) {
+			resize(2 * items.length);
+		}
+		items[(head + size) & (items.length - 1)] = item;
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Deletes and returns an item at the front.
+	 * @return First item in queue.
+	 */
+	public int removeFirst() {
+		//If client attempts to remove from an empty deque.
+		if(isEmpty()) {
+			throw new NoSuchElementException("Cannot remove further, deque is empty!");
+		}
+		int item = items[head];
+		head = (head + 1) & (items.length - 1);
+		size--;
+		modCount++;
+		shrinkIfSparse();
+		return item;
+	}
+
+	/**
+	 * Deletes and returns an item at the end.
+	 * @return Last item in queue.
+	 */
+	public int removeLast() {
+		//If client attempts to remove from an empty deque.
+		if(isEmpty()) {
+			throw new NoSuchElementException("Cannot remove further, deque is empty!");
+		}
+		int item = items[(head + size - 1) & (items.length - 1)];
+		size--;
+		modCount++;
+		shrinkIfSparse();
+		return item;
+	}
+
+	/**
+	 * Returns an iterator over items in order from front to end.
+	 */
+	@Override
+	public PrimitiveIterator.OfInt iterator() {
+		return new IntDequeIterator();
+	}
+
+	private class IntDequeIterator implements PrimitiveIterator.OfInt {
+		private int index;
+		private final int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			return index < size;
+		}
+
+		@Override
+		public int nextInt() {
+			if(expectedModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return items[(head + index++) & (items.length - 1)];
+		}
+	}
+
+	/**
+	 * Half size of array when 1/4 full.
+	 */
+	private void shrinkIfSparse() {
+		if(items.length > MIN_CAPACITY && size == items.length / 4) {
+			resize(items.length / 2);
+		}
+	}
+
+	/**
+	 * Copies the items, front first, into an array of capacity n.
+	 * @param n new capacity, a power of two
+	 */
+	private void resize(int n) {
+		int[] newItems = new int[n];
+		int firstPart = Math.min(size, items.length - head);
+		System.arraycopy(items, head, newItems, 0, firstPart);
+		System.arraycopy(items, 0, newItems, firstPart, size - firstPart);
+		items = newItems;
+		head = 0;
+	}
+
+	/**
+	 * Unit testing.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		//random adds and removes at both ends, checked against java.util.ArrayDeque
+		IntDeque test = new IntDeque();
+		ArrayDeque<Integer> expected = new ArrayDeque<>();
+		RandomSource rng = new Xoroshiro128PlusPlus(2420);
+		boolean same = true;
+		int largest = 0;
+		for(int i = 0; i < 100_000; i++) {
+			//adds win early on so the deque grows, then removes win so it shrinks, then
+			//they balance so items are left for the iterator
+			int op = rng.nextInt(i < 50_000 ? 6 : i < 90_000 ? 3 : 4);
+			if(op == 0 && !expected.isEmpty()) {
+				same &= test.removeFirst() == expected.removeFirst();
+			}
+			else if(op == 1 && !expected.isEmpty()) {
+				same &= test.removeLast() == expected.removeLast();
+			}
+			else if(op % 2 == 0) {
+				test.addFirst(i);
+				expected.addFirst(Integer.valueOf(i));
+			}
+			else {
+				test.addLast(i);
+				expected.addLast(Integer.valueOf(i));
+			}
+			same &= test.size() == expected.size();
+			largest = Math.max(largest, test.size());
+		}
+		//the iterator should run front to end
+		Iterator<Integer> order = expected.iterator();
+		for(PrimitiveIterator.OfInt it = test.iterator(); it.hasNext(); ) {
+			same &= it.nextInt() == order.next();
+		}
+		System.out.printf("matches ArrayDeque: %b  largest size: %d  size: %d%n", same, largest, test.size());
+
+		//an iterator must fail fast once the deque changes
+		PrimitiveIterator.OfInt open = test.iterator();
+		test.addLast(1);
+		try {
+			open.nextInt();
+			System.out.println("\nchanged deque: no exception");
+		}
+		catch(ConcurrentModificationException e) {
+			System.out.println("\nchanged deque: ConcurrentModificationException");
+		}
+
+		IntDeque empty = new IntDeque();
+		try {
+			empty.removeLast();
+		}
+		catch(NoSuchElementException e) {
+			System.out.println("removeLast: " + e.getMessage());
+		}
+	}
+}
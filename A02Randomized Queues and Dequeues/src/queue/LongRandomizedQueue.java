@@ -0,0 +1,213 @@
+package queue;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * A RandomizedQueue of long values stored unboxed in a long[], with the same
+ * swap-with-last removal, the same resizing, the same pluggable RandomSource and the
+ * same lazily shuffled, fail-fast iterator. Use nextLong on the iterator to read
+ * without boxing.
+ * 
+ * @author Kim Soto, Chris Christoffersen
+ *
+ */
+public class LongRandomizedQueue implements Iterable<Long> {
+	//FIELDS
+	private long[] itemArray;
+	private int size;
+	private int modCount; //Changes since creation, so iterators can fail fast.
+	private final RandomSource rng;
+
+	/**
+	 * Constructs an empty randomized queue drawing from a Xoroshiro128PlusPlus seeded
+	 * from StdRandom, so StdRandom.setSeed still makes runs reproducible.
+	 */
+	public LongRandomizedQueue() {
+		this(new Xoroshiro128PlusPlus((long) (StdRandom.uniform() * 0x1.0p53)));
+	}
+
+	/**
+	 * Constructs an empty randomized queue drawing from the given source. The queue and
+	 * its iterators advance it, so it should not be shared between threads.
+	 * @param rng
+	 */
+	public LongRandomizedQueue(RandomSource rng) {
+		if(rng == null) {
+			throw new NullPointerException("Random source is null!");
+		}
+		this.rng = rng;
+		itemArray = new long[2];
+		size = 0;
+	}
+
+	/**
+	 * Checks if the queue is empty.
+	 * @return True if queue is empty, false if it contains elements.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the number of items on the queue.
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds item into queue.
+	 * @param item
+	 */
+	public void enqueue(long item) {
+		//double size of array
+		if(size == itemArray.length) {
+			resize(2 * itemArray.length);
+		}
+		itemArray[size++] = item;
+		modCount++;
+	}
+
+	/**
+	 * Deletes and returns a random item.
+	 * @return
+	 */
+	public long dequeue() {
+		if(isEmpty()) {
+			throw new NoSuchElementException();
+		}
+
+		int n = rng.nextInt(size);
+		long random = itemArray[n];
+		itemArray[n] = itemArray[--size];
+		modCount++;
+
+		//half size of array when 1/4 full
+		if(size >= 1 && size == itemArray.length / 4) {
+			resize(itemArray.length / 2);
+		}
+
+		return random;
+	}
+
+	/**
+	 * Returns a random item, but does not delete it.
+	 * @return
+	 */
+	public long sample() {
+		if(isEmpty()) {
+			throw new NoSuchElementException();
+		}
+
+		return itemArray[rng.nextInt(size)];
+	}
+
+	/**
+	 * Returns an iterator over items in random order. The order is drawn lazily, as
+	 * RandomizedQueue's is, and the iterator fails fast if the queue is changed while
+	 * it is in use.
+	 */
+	@Override
+	public PrimitiveIterator.OfLong iterator() {
+		return new LongRandomizedQueueIterator();
+	}
+
+	private class LongRandomizedQueueIterator implements PrimitiveIterator.OfLong {
+		private final ShuffledIndices order = new ShuffledIndices(size, rng);
+		private final int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			return order.hasNext();
+		}
+
+		@Override
+		public long nextLong() {
+			if(expectedModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			return itemArray[order.next()];
+		}
+	}
+
+	/**
+	 * Resize array to avoid thrashing.
+	 * @param n
+	 */
+	private void resize(int n) {
+		itemArray = Arrays.copyOf(itemArray, n);
+	}
+
+	/**
+	 * Unit testing.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		int n = 1000;
+		LongRandomizedQueue first = new LongRandomizedQueue(new Xoroshiro128PlusPlus(2420));
+		LongRandomizedQueue second = new LongRandomizedQueue(new Xoroshiro128PlusPlus(2420));
+		for(int i = 0; i < n; i++) {
+			first.enqueue(i);
+			second.enqueue(i);
+		}
+
+		//the iterator and dequeue should each give every item exactly once, in the
+		//same order for queues with the same seed
+		long[] iterated = new long[n];
+		int count = 0;
+		boolean same = true;
+		PrimitiveIterator.OfLong other = second.iterator();
+		for(PrimitiveIterator.OfLong it = first.iterator(); it.hasNext(); count++) {
+			iterated[count] = it.nextLong();
+			same &= iterated[count] == other.nextLong();
+		}
+		Arrays.sort(iterated);
+		long[] dequeued = new long[n];
+		for(int i = 0; i < n; i++) {
+			dequeued[i] = first.dequeue();
+			same &= dequeued[i] == second.dequeue();
+		}
+		Arrays.sort(dequeued);
+		long[] expected = new long[n];
+		for(int i = 0; i < n; i++) {
+			expected[i] = i;
+		}
+		System.out.printf("iterator gives every item once: %b%n", Arrays.equals(iterated, expected));
+		System.out.printf("dequeue gives every item once: %b%n", Arrays.equals(dequeued, expected));
+		System.out.printf("seeded queues agree: %b  is Empty: %b  size: %d%n", same, first.isEmpty(),
+				first.size());
+
+		//an iterator must fail fast once the queue changes
+		first.enqueue(1);
+		first.enqueue(2);
+		PrimitiveIterator.OfLong open = first.iterator();
+		open.nextLong();
+		first.enqueue(3);
+		try {
+			open.nextLong();
+			System.out.println("\nchanged queue: no exception");
+		}
+		catch(ConcurrentModificationException e) {
+			System.out.println("\nchanged queue: ConcurrentModificationException");
+		}
+		System.out.println("test sample: " + first.sample());
+
+		LongRandomizedQueue empty = new LongRandomizedQueue();
+		try {
+			empty.dequeue();
+		}
+		catch(NoSuchElementException e) {
+			System.out.println("dequeue on empty queue: NoSuchElementException");
+		}
+	}
+}
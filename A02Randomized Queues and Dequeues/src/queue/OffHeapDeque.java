@@ -0,0 +1,490 @@
+package queue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * A Deque that keeps its items serialised outside the Java heap, so millions of items
+ * cost neither an object header each nor any garbage collector scanning. Items are
+ * written by a Codec into chunks of direct memory, held in a list of chunks in order.
+ * Each record is framed by its length on both sides, so it can be read from either end.
+ * <p>
+ * With a spill directory, once the direct chunks reach a byte budget further chunks
+ * are mapped regions of a temporary file there, which the operating system pages out
+ * as it needs to. Emptied file regions are reused rather than returned, and the file
+ * is deleted by close.
+ * <p>
+ * Not thread safe.
+ *
+ * @author Kim Soto, Chris Christoffersen
+ *
+ * @param <Item>
+ */
+public class OffHeapDeque<Item> implements Iterable<Item>, AutoCloseable {
+	private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+	private static final int FRAME = 2 * Integer.BYTES; //Length before and after a record.
+
+	/**
+	 * Converts items to and from bytes. encode must write exactly encodedLength(item)
+	 * bytes, and decode must read the item back from all of the remaining bytes.
+	 *
+	 * @param <Item>
+	 */
+	public interface Codec<Item> {
+		int encodedLength(Item item);
+
+		void encode(Item item, ByteBuffer out);
+
+		Item decode(ByteBuffer in);
+
+		/**
+		 * Strings as UTF-8.
+		 */
+		Codec<String> STRING = new Codec<String>() {
+			@Override
+			public int encodedLength(String item) {
+				int length = 0;
+				for(int i = 0; i < item.length(); i++) {
+					char c = item.charAt(i);
+					if(c < 0x80) {
+						length += 1;
+					}
+					else if(c < 0x800) {
+						length += 2;
+					}
+					else if(Character.isHighSurrogate(c) && i + 1 < item.length()
+							&& Character.isLowSurrogate(item.charAt(i + 1))) {
+						length += 4;
+						i++;
+					}
+					else if(Character.isSurrogate(c)) {
+						length += 1; //getBytes replaces an unpaired surrogate with '?'.
+					}
+					else {
+						length += 3;
+					}
+				}
+				return length;
+			}
+
+			@Override
+			public void encode(String item, ByteBuffer out) {
+				out.put(item.getBytes(StandardCharsets.UTF_8));
+			}
+
+			@Override
+			public String decode(ByteBuffer in) {
+				return StandardCharsets.UTF_8.decode(in).toString();
+			}
+		};
+
+		/**
+		 * Longs as 8 bytes.
+		 */
+		Codec<Long> LONG = new Codec<Long>() {
+			@Override
+			public int encodedLength(Long item) {
+				return Long.BYTES;
+			}
+
+			@Override
+			public void encode(Long item, ByteBuffer out) {
+				out.putLong(item);
+			}
+
+			@Override
+			public Long decode(ByteBuffer in) {
+				return in.getLong();
+			}
+		};
+	}
+
+	/**
+	 * A buffer holding whole records between start and end.
+	 */
+	private static final class Chunk {
+		final ByteBuffer buffer;
+		final boolean mapped;
+		int start;
+		int end;
+
+		Chunk(ByteBuffer buffer, boolean mapped) {
+			this.buffer = buffer;
+			this.mapped = mapped;
+		}
+	}
+
+	//FIELDS
+	private final Codec<Item> codec;
+	private final int chunkSize;
+	private final long memoryBudget; //Direct bytes allowed before chunks spill to the file.
+	private final Path spillDirectory; //Null if chunks never spill.
+	private final ArrayDeque<Chunk> chunks = new ArrayDeque<>();
+	private final ArrayDeque<Chunk> spareMapped = new ArrayDeque<>(); //Emptied file regions.
+	private Chunk spareDirect; //One emptied direct chunk, so a deque hovering at a chunk boundary does not reallocate.
+	private long directBytes;
+	private FileChannel spillFile;
+	private long spillFileLength;
+	private long bytes;
+	private int size;
+	private int modCount;
+
+	/**
+	 * Constructs an empty deque in direct memory, without a budget.
+	 * @param codec
+	 */
+	public OffHeapDeque(Codec<Item> codec) {
+		this(codec, DEFAULT_CHUNK_SIZE, Long.MAX_VALUE, null);
+	}
+
+	/**
+	 * Constructs an empty deque that spills to a file in spillDirectory once its direct
+	 * chunks reach memoryBudget bytes.
+	 * @param codec
+	 * @param memoryBudget direct bytes before spilling
+	 * @param spillDirectory where to create the spill file
+	 */
+	public OffHeapDeque(Codec<Item> codec, long memoryBudget, Path spillDirectory) {
+		this(codec, DEFAULT_CHUNK_SIZE, memoryBudget, spillDirectory);
+	}
+
+	/**
+	 * Constructs an empty deque.
+	 * @param codec
+	 * @param chunkSize bytes per chunk; larger records get a chunk of their own
+	 * @param memoryBudget direct bytes before spilling
+	 * @param spillDirectory where to create the spill file, or null to never spill
+	 */
+	public OffHeapDeque(Codec<Item> codec, int chunkSize, long memoryBudget, Path spillDirectory) {
+		if(codec == null) {
+			throw new NullPointerException("Codec is null!");
+		}
+		if(chunkSize < FRAME) {
+			throw new IllegalArgumentException("Chunk size must be at least " + FRAME + ": " + chunkSize);
+		}
+		if(memoryBudget < 0) {
+			throw new IllegalArgumentException("Memory budget must not be negative: " + memoryBudget);
+		}
+		this.codec = codec;
+		this.chunkSize = chunkSize;
+		this.memoryBudget = memoryBudget;
+		this.spillDirectory = spillDirectory;
+	}
+
+	/**
+	 * Checks if the deque is empty.
+	 * @return True if deque is empty, false if it contains elements.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the number of items in the deque.
+	 * @return int value of size.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of encoded bytes held, not counting framing.
+	 * @return Sum of the encoded lengths of the items.
+	 */
+	public long bytes() {
+		return bytes;
+	}
+
+	/**
+	 * Inserts an item at the front of queue.
+	 * @param item
+	 */
+	public void addFirst(Item item) {
+		int length = encodedLength(item);
+		Chunk chunk = chunks.peekFirst();
+		if(chunk == null || chunk.start < length + FRAME) {
+			chunk = newChunk(length + FRAME);
+			chunk.start = chunk.end = chunk.buffer.capacity();
+			chunks.addFirst(chunk);
+		}
+		chunk.start -= length + FRAME;
+		write(chunk, chunk.start, item, length);
+		added(length);
+	}
+
+	/**
+	 * Inserts an item at the end of queue.
+	 * @param item
+	 */
+	public void addLast(Item item) {
+		int length = encodedLength(item);
+		Chunk chunk = chunks.peekLast();
+		if(chunk == null || chunk.buffer.capacity() - chunk.end < length + FRAME) {
+			chunk = newChunk(length + FRAME);
+			chunks.addLast(chunk);
+		}
+		write(chunk, chunk.end, item, length);
+		chunk.end += length + FRAME;
+		added(length);
+	}
+
+	/**
+	 * Deletes and returns an item at the front.
+	 * @return First item in queue.
+	 */
+	public Item removeFirst() {
+		//If client attempts to remove from an empty deque.
+		if(isEmpty()) {
+			throw new NoSuchElementException("Cannot remove further, deque is empty!");
+		}
+		Chunk chunk = chunks.peekFirst();
+		int length = chunk.buffer.getInt(chunk.start);
+		Item item = read(chunk, chunk.start, length);
+		chunk.start += length + FRAME;
+		removed(length);
+		if(chunk.start == chunk.end) {
+			release(chunks.removeFirst());
+		}
+		return item;
+	}
+
+	/**
+	 * Deletes and returns an item at the end.
+	 * @return Last item in queue.
+	 */
+	public Item removeLast() {
+		//If client attempts to remove from an empty deque.
+		if(isEmpty()) {
+			throw new NoSuchElementException("Cannot remove further, deque is empty!");
+		}
+		Chunk chunk = chunks.peekLast();
+		int length = chunk.buffer.getInt(chunk.end - Integer.BYTES);
+		chunk.end -= length + FRAME;
+		Item item = read(chunk, chunk.end, length);
+		removed(length);
+		if(chunk.start == chunk.end) {
+			release(chunks.removeLast());
+		}
+		return item;
+	}
+
+	/**
+	 * Returns an iterator over items in order from front to end, decoding each one.
+	 */
+	public Iterator<Item> iterator() {
+		return new OffHeapDequeIterator();
+	}
+
+	private class OffHeapDequeIterator implements Iterator<Item> {
+		private final Iterator<Chunk> chunkIterator = chunks.iterator();
+		private final int expectedModCount = modCount;
+		private Chunk chunk;
+		private int offset;
+		private int remaining = size;
+
+		@Override
+		public boolean hasNext() {
+			return remaining > 0;
+		}
+
+		@Override
+		public Item next() {
+			if(expectedModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			if(chunk == null || offset == chunk.end) {
+				chunk = chunkIterator.next();
+				offset = chunk.start;
+			}
+			int length = chunk.buffer.getInt(offset);
+			Item item = read(chunk, offset, length);
+			offset += length + FRAME;
+			remaining--;
+			return item;
+		}
+	}
+
+	/**
+	 * Drops every chunk and deletes the spill file. The deque is empty afterwards and
+	 * may be used again.
+	 */
+	@Override
+	public void close() {
+		chunks.clear();
+		spareMapped.clear();
+		spareDirect = null;
+		directBytes = 0;
+		size = 0;
+		bytes = 0;
+		modCount++;
+		if(spillFile != null) {
+			try {
+				spillFile.close();
+			}
+			catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			finally {
+				spillFile = null;
+				spillFileLength = 0;
+			}
+		}
+	}
+
+	private int encodedLength(Item item) {
+		//If client attempts to add a null item.
+		if(item == null) {
+			throw new NullPointerException("Item is null!");
+		}
+		int length = codec.encodedLength(item);
+		if(length < 0 || length > Integer.MAX_VALUE - FRAME) {
+			throw new IllegalStateException("Codec gave an invalid length: " + length);
+		}
+		return length;
+	}
+
+	/**
+	 * Writes a framed record at offset.
+	 */
+	private void write(Chunk chunk, int offset, Item item, int length) {
+		ByteBuffer buffer = chunk.buffer;
+		buffer.clear();
+		buffer.putInt(offset, length);
+		buffer.limit(offset + Integer.BYTES + length).position(offset + Integer.BYTES);
+		codec.encode(item, buffer);
+		if(buffer.hasRemaining()) {
+			throw new IllegalStateException("Codec wrote fewer bytes than its encodedLength");
+		}
+		buffer.clear();
+		buffer.putInt(offset + Integer.BYTES + length, length);
+	}
+
+	/**
+	 * Decodes the record of the given length framed at offset.
+	 */
+	private Item read(Chunk chunk, int offset, int length) {
+		ByteBuffer payload = chunk.buffer.duplicate();
+		payload.limit(offset + Integer.BYTES + length).position(offset + Integer.BYTES);
+		return codec.decode(payload);
+	}
+
+	private void added(int length) {
+		size++;
+		bytes += length;
+		modCount++;
+	}
+
+	private void removed(int length) {
+		size--;
+		bytes -= length;
+		modCount++;
+	}
+
+	/**
+	 * An empty chunk with room for at least the given number of bytes: a spare one if
+	 * possible, then direct memory within the budget, then the spill file.
+	 */
+	private Chunk newChunk(int needed) {
+		int capacity = Math.max(chunkSize, needed);
+		if(capacity == chunkSize && spareDirect != null) {
+			Chunk chunk = spareDirect;
+			spareDirect = null;
+			return chunk;
+		}
+		if(spillDirectory == null || directBytes + capacity <= memoryBudget) {
+			directBytes += capacity;
+			return new Chunk(ByteBuffer.allocateDirect(capacity), false);
+		}
+		if(capacity == chunkSize && !spareMapped.isEmpty()) {
+			return spareMapped.removeFirst();
+		}
+		return new Chunk(map(capacity), true);
+	}
+
+	/**
+	 * Keeps an emptied chunk for reuse, or lets it go.
+	 */
+	private void release(Chunk chunk) {
+		chunk.start = chunk.end = 0;
+		if(chunk.buffer.capacity() != chunkSize) {
+			if(!chunk.mapped) {
+				directBytes -= chunk.buffer.capacity();
+			}
+			//An oversized file region stays unused until close.
+		}
+		else if(chunk.mapped) {
+			spareMapped.addLast(chunk);
+		}
+		else if(spareDirect == null) {
+			spareDirect = chunk;
+		}
+		else {
+			directBytes -= chunkSize;
+		}
+	}
+
+	/**
+	 * Maps a new region at the end of the spill file, creating the file on first use.
+	 */
+	private ByteBuffer map(int capacity) {
+		try {
+			if(spillFile == null) {
+				Path path = Files.createTempFile(spillDirectory, "deque", ".spill");
+				spillFile = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+						StandardOpenOption.DELETE_ON_CLOSE);
+			}
+			ByteBuffer region = spillFile.map(FileChannel.MapMode.READ_WRITE, spillFileLength, capacity);
+			spillFileLength += capacity;
+			return region;
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Unit testing.
+	 * @param args
+	 */
+	public static void main(String[] args) throws IOException {
+		//Small chunks and a tiny budget so the test spills.
+		Path directory = Files.createTempDirectory("offheap");
+		try(OffHeapDeque<String> deque = new OffHeapDeque<>(Codec.STRING, 64, 256, directory)) {
+			Deque<String> reference = new Deque<>();
+			Random random = new Random(42);
+			boolean agree = true;
+			for(int i = 0; i < 100_000; i++) {
+				String item = "item-" + i + (i % 10 == 0 ? "-\u00e9\u4e2d\ud83d\ude00" : "");
+				//Adds are favoured so the deque grows past the budget.
+				switch(deque.isEmpty() ? random.nextInt(3) : random.nextInt(5)) {
+				case 0: deque.addFirst(item); reference.addFirst(item); break;
+				case 1:
+				case 2: deque.addLast(item); reference.addLast(item); break;
+				case 3: agree &= deque.removeFirst().equals(reference.removeFirst()); break;
+				default: agree &= deque.removeLast().equals(reference.removeLast()); break;
+				}
+			}
+			Iterator<String> it = reference.iterator();
+			for(String item : deque) {
+				agree &= item.equals(it.next());
+			}
+			System.out.printf("agrees with Deque: %b  size: %d  bytes: %d  spilled: %b%n", agree, deque.size(),
+					deque.bytes(), deque.spillFile != null);
+		}
+		Files.delete(directory);
+	}
+}
@@ -0,0 +1,56 @@
+package queue;
+
+/**
+ * A source of random numbers owned by one caller, so drawing from it never contends
+ * with other threads and a run seeded the same way repeats exactly. split hands out
+ * an independent source for another thread or trial.
+ *
+ * @author Kim Soto, Chris Christoffersen
+ *
+ */
+public interface RandomSource {
+
+	/**
+	 * Returns 64 uniformly random bits.
+	 * @return Random long.
+	 */
+	long nextLong();
+
+	/**
+	 * Returns a new source whose numbers are independent of this one's. Advances this
+	 * source, so splitting the same source repeatedly gives different streams.
+	 * @return Split off source.
+	 */
+	RandomSource split();
+
+	/**
+	 * Returns a uniformly random int in [0, bound), using Lemire's multiply and shift
+	 * reduction: one multiplication per draw, and a modulo only on the rare draw that
+	 * has to be rejected to stay unbiased.
+	 * @param bound Exclusive upper bound
+	 * @return Random int.
+	 */
+	default int nextInt(int bound) {
+		if(bound <= 0) {
+			throw new IllegalArgumentException("Bound must be positive: " + bound);
+		}
+		long m = (nextLong() >>> 32) * bound;
+		long low = m & 0xFFFFFFFFL;
+		if(low < bound) {
+			long threshold = (1L << 32) % bound;
+			while(low < threshold) {
+				m = (nextLong() >>> 32) * bound;
+				low = m & 0xFFFFFFFFL;
+			}
+		}
+		return (int) (m >>> 32);
+	}
+
+	/**
+	 * Returns a uniformly random double in [0, 1).
+	 * @return Random double.
+	 */
+	default double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+}
@@ -1,5 +1,8 @@
 package queue;
 
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -17,12 +20,29 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 	//FIELDS
 	private Item[] itemArray;
 	private int size;
+	private int modCount; //Changes since creation, so iterators can fail fast.
+	private final RandomSource rng;
+	private int[] swapped = new int[0]; //Swap positions sample(k, false, out) has to undo.
 	
 	/**
-	 * Constructs an empty randomized queue.
+	 * Constructs an empty randomized queue drawing from a Xoroshiro128PlusPlus seeded
+	 * from StdRandom, so StdRandom.setSeed still makes runs reproducible.
 	 */
-	@SuppressWarnings("unchecked")
 	public RandomizedQueue() {
+		this(new Xoroshiro128PlusPlus((long) (StdRandom.uniform() * 0x1.0p53)));
+	}
+
+	/**
+	 * Constructs an empty randomized queue drawing from the given source. The queue and
+	 * its iterators advance it, so it should not be shared between threads.
+	 * @param rng
+	 */
+	@SuppressWarnings("unchecked")
+	public RandomizedQueue(RandomSource rng) {
+		if(rng == null) {
+			throw new NullPointerException("Random source is null!");
+		}
+		this.rng = rng;
 		itemArray = (Item[]) new Object[2];
 		size = 0;
 	}
@@ -58,6 +78,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 			resize(2 * itemArray.length);
 		}
 		itemArray[size++] = item;
+		modCount++;
 	}
 
 	/**
@@ -69,13 +90,14 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 			throw new NoSuchElementException();
 		}
 		
-		int n = StdRandom.uniform(size);
+		int n = rng.nextInt(size);
 		Item random = itemArray[n];
 		
 		if(n != size - 1) {
 			itemArray[n] = itemArray[size - 1];
 		}
 		itemArray[--size] = null; //prevent loitering
+		modCount++;
 		
 		//half size of array when 1/4 full
 		if(size >= 1 && size == itemArray.length /4) {
@@ -94,31 +116,110 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 			throw new NoSuchElementException();
 		}
 		
-		return itemArray[StdRandom.uniform(size)];
+		return itemArray[rng.nextInt(size)];
+	}
+
+	/**
+	 * Deletes k random items and returns them in out. The items are picked by one pass
+	 * of a partial Fisher-Yates shuffle that gathers them at the end of the array, and
+	 * the array is resized at most once.
+	 * @param k number of items
+	 * @param out array to fill from index 0, at least k long
+	 * @return out
+	 */
+	public Item[] dequeue(int k, Item[] out) {
+		checkCount(k, out);
+		if(k > size) {
+			throw new NoSuchElementException();
+		}
+		if(k == 0) {
+			return out; //Nothing changes, so open iterators stay valid.
+		}
+		
+		for(int i = 0; i < k; i++) {
+			int last = size - 1 - i;
+			int n = rng.nextInt(last + 1);
+			out[i] = itemArray[n];
+			itemArray[n] = itemArray[last];
+			itemArray[last] = null; //prevent loitering
+		}
+		size -= k;
+		modCount++;
+		
+		//halve once for every time dequeue would have, which it last did at size 1
+		int capacity = itemArray.length;
+		while(Math.max(size, 1) <= capacity / 4) {
+			capacity /= 2;
+		}
+		if(capacity != itemArray.length) {
+			resize(capacity);
+		}
+		
+		return out;
+	}
+
+	/**
+	 * Returns k random items in out, but does not delete them. Without replacement the
+	 * items are picked by a partial Fisher-Yates pass that is undone afterwards, so the
+	 * queue and its iterators are unchanged. Undoing needs the k swap positions, which
+	 * go in a scratch array kept by the queue and only grown when k exceeds it.
+	 * @param k number of items
+	 * @param withReplacement whether the same item may be returned more than once
+	 * @param out array to fill from index 0, at least k long
+	 * @return out
+	 */
+	public Item[] sample(int k, boolean withReplacement, Item[] out) {
+		checkCount(k, out);
+		if(k > 0 && isEmpty() || !withReplacement && k > size) {
+			throw new NoSuchElementException();
+		}
+		
+		if(withReplacement) {
+			for(int i = 0; i < k; i++) {
+				out[i] = itemArray[rng.nextInt(size)];
+			}
+			return out;
+		}
+		
+		//partial Fisher-Yates, then swap back so the array and any iterators are unchanged
+		if(swapped.length < k) {
+			swapped = new int[Math.max(k, 2 * swapped.length)];
+		}
+		for(int i = 0; i < k; i++) {
+			int last = size - 1 - i;
+			int n = rng.nextInt(last + 1);
+			swapped[i] = n;
+			out[i] = itemArray[n];
+			itemArray[n] = itemArray[last];
+			itemArray[last] = out[i];
+		}
+		for(int i = k - 1; i >= 0; i--) {
+			int last = size - 1 - i;
+			int n = swapped[i];
+			itemArray[last] = itemArray[n];
+			itemArray[n] = out[i];
+		}
+		
+		return out;
 	}
 
 	/**
-	 * Returns an independent iterator over items in random order.
+	 * Returns an iterator over items in random order. The order is drawn lazily, one
+	 * step of a Fisher-Yates shuffle per item, so the first item comes in O(1) and
+	 * memory grows only with the items taken. The iterator fails fast if the queue is
+	 * changed while it is in use.
 	 */
 	public Iterator<Item> iterator(){
 		return new RandomizedQueueIterator();
 	}
 	
 	private class RandomizedQueueIterator implements Iterator<Item>{
-		private int s = size;
-		private Item[] queue;
-		
-		@SuppressWarnings("unchecked")
-		public RandomizedQueueIterator(){
-			queue = (Item[]) new Object[s];
-			for(int i = 0; i < s; i++) {
-				queue[i] = itemArray[i];
-			}
-		}
+		private final ShuffledIndices order = new ShuffledIndices(size, rng);
+		private final int expectedModCount = modCount;
 		
 		@Override
 		public boolean hasNext() {
-			return s > 0;
+			return order.hasNext();
 		}
 		
 		public void remove() {
@@ -127,16 +228,23 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 
 		@Override
 		public Item next() {
+			if(expectedModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
 			if(!hasNext()) {
 				throw new NoSuchElementException();
 			}
 			
-			int index = StdRandom.uniform(s);
-			Item temp = queue[index];
-			queue[index] = queue[--s];
-			queue[s] = null;
-			
-			return temp;
+			return itemArray[order.next()];
+		}
+	}
+	
+	private static void checkCount(int k, Object[] out) {
+		if(k < 0) {
+			throw new IllegalArgumentException("k must not be negative: " + k);
+		}
+		if(out.length < k) {
+			throw new IllegalArgumentException("Output array holds " + out.length + " items, " + k + " requested");
 		}
 	}
 	
@@ -178,5 +286,55 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 		System.out.printf("\nis Empty: %b  size: %d%n", test.isEmpty(), test.size());
 		System.out.println("\ntest sample: " + test.sample());
 		System.out.println("\ntesting dequeue: " + test.dequeue());
+		
+		//same seeded source, same order
+		RandomizedQueue<Integer> first = new RandomizedQueue<>(new Xoroshiro128PlusPlus(2420));
+		RandomizedQueue<Integer> second = new RandomizedQueue<>(new Xoroshiro128PlusPlus(2420));
+		for(int i = 0; i < 10; i++) {
+			first.enqueue(i);
+			second.enqueue(i);
+		}
+		boolean same = true;
+		while(!first.isEmpty()) {
+			same &= first.dequeue().equals(second.dequeue());
+		}
+		System.out.println("\nseeded queues agree: " + same);
+		
+		//nextInt should stay in bounds and hit each value about equally often
+		RandomSource rng = new Xoroshiro128PlusPlus(1);
+		int[] counts = new int[3];
+		for(int i = 0; i < 300_000; i++) {
+			counts[rng.nextInt(3)]++;
+		}
+		System.out.println("nextInt(3) counts: " + Arrays.toString(counts));
+		
+		//bulk dequeue: distinct items, and the rest still all come out
+		RandomizedQueue<Integer> bulk = new RandomizedQueue<>(new Xoroshiro128PlusPlus(3));
+		for(int i = 0; i < 1024; i++) {
+			bulk.enqueue(i);
+		}
+		Integer[] taken = bulk.dequeue(1000, new Integer[1000]);
+		HashSet<Integer> all = new HashSet<>(Arrays.asList(taken));
+		int distinct = all.size();
+		for(int item : bulk) {
+			all.add(item);
+		}
+		System.out.printf("%ndequeue(k): %d distinct  size: %d  all items accounted for: %b%n",
+				distinct, bulk.size(), all.size() == 1024);
+		
+		//sample without replacement and dequeue of 0 items leave an open iterator intact
+		Iterator<Integer> open = bulk.iterator();
+		open.next();
+		bulk.dequeue(0, new Integer[0]);
+		Integer[] sampled = bulk.sample(24, false, new Integer[24]);
+		int rest = 0;
+		while(open.hasNext()) {
+			open.next();
+			rest++;
+		}
+		System.out.printf("sample(k, false): %d distinct  iterator continued over %d more%n",
+				new HashSet<>(Arrays.asList(sampled)).size(), rest);
+		bulk.dequeue(23, new Integer[23]);
+		System.out.println("sample(k, true) of 1 item: " + Arrays.toString(bulk.sample(3, true, new Integer[3])));
 	}
-}
\ No newline at end of file
+}
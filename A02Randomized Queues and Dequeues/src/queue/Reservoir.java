@@ -0,0 +1,170 @@
+package queue;
+
+import java.util.Arrays;
+
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * A uniform random sample of at most k items from a stream of unknown length, held in
+ * O(k) memory. Uses Algorithm L: after the reservoir fills, the number of items to pass
+ * over before the next replacement is drawn from a geometric distribution, so only
+ * O(k log(n/k)) items are ever stored or cost a random number.
+ * <p>
+ * Callers ask skip() how many items to discard, discard them without building them,
+ * then add() the next one.
+ *
+ * @author Kim Soto, Chris Christoffersen
+ *
+ * @param <Item>
+ */
+public class Reservoir<Item> {
+	//FIELDS
+	private final Item[] items;
+	private int size;
+	private long seen; //Items offered so far, kept or skipped.
+	private double w; //Algorithm L's threshold W, shrinking as more items are seen.
+	private long skip; //Items to pass over before the next one replaces a sample.
+
+	/**
+	 * Constructs an empty reservoir holding up to k items.
+	 * @param k sample size
+	 */
+	@SuppressWarnings("unchecked")
+	public Reservoir(int k) {
+		if(k < 0) {
+			throw new IllegalArgumentException("k must not be negative: " + k);
+		}
+		items = (Item[]) new Object[k];
+	}
+
+	/**
+	 * Number of items that should be discarded before the next call to add.
+	 * @return Items to skip, 0 while the reservoir is filling.
+	 */
+	public long skip() {
+		return skip;
+	}
+
+	/**
+	 * Records that the skipped items have been passed over and offers the next item,
+	 * which is kept either to fill the reservoir or in place of a random sample.
+	 * @param item
+	 */
+	public void add(Item item) {
+		//If client attempts to add a null item.
+		if(item == null) {
+			throw new NullPointerException("Item is null!");
+		}
+		seen += skip + 1;
+		if(size < items.length) {
+			items[size++] = item;
+			if(size == items.length) {
+				w = Math.exp(Math.log(uniform()) / items.length);
+				nextSkip();
+			}
+		}
+		else if(items.length > 0) {
+			items[StdRandom.uniform(items.length)] = item;
+			w *= Math.exp(Math.log(uniform()) / items.length);
+			nextSkip();
+		}
+	}
+
+	/**
+	 * Offers a single item, counting it against any pending skip. Slower than pairing
+	 * skip with add, since the caller has already built the item.
+	 * @param item
+	 */
+	public void offer(Item item) {
+		if(skip > 0) {
+			skip--;
+			seen++;
+		}
+		else {
+			add(item);
+		}
+	}
+
+	/**
+	 * Returns the number of items in the sample.
+	 * @return min(k, items seen).
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of items offered so far, including skipped ones.
+	 * @return Stream length seen.
+	 */
+	public long seen() {
+		return seen;
+	}
+
+	/**
+	 * Returns the sample in random order in out.
+	 * @param out array to fill from index 0, at least size() long
+	 * @return out
+	 */
+	public Item[] sample(Item[] out) {
+		if(out.length < size) {
+			throw new IllegalArgumentException("Output array holds " + out.length + " items, " + size + " sampled");
+		}
+		System.arraycopy(items, 0, out, 0, size);
+		for(int i = size - 1; i > 0; i--) {
+			int j = StdRandom.uniform(i + 1);
+			Item item = out[i];
+			out[i] = out[j];
+			out[j] = item;
+		}
+		return out;
+	}
+
+	/**
+	 * Draws the geometric gap to the next replacement.
+	 */
+	private void nextSkip() {
+		double gap = Math.floor(Math.log(uniform()) / Math.log1p(-w));
+		//A NaN or huge gap means no further replacement is practically possible.
+		skip = gap < Long.MAX_VALUE ? (long) gap : Long.MAX_VALUE;
+	}
+
+	/**
+	 * Uniform in (0, 1], so its logarithm is finite.
+	 */
+	private static double uniform() {
+		return 1.0 - StdRandom.uniform();
+	}
+
+	/**
+	 * Unit testing.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		//Every item of a short stream should be sampled about equally often.
+		int n = 20;
+		int k = 5;
+		int trials = 100_000;
+		int[] counts = new int[n];
+		for(int t = 0; t < trials; t++) {
+			Reservoir<Integer> reservoir = new Reservoir<>(k);
+			for(int i = 0; i < n; i++) {
+				reservoir.offer(i);
+			}
+			for(int item : reservoir.sample(new Integer[k])) {
+				counts[item]++;
+			}
+		}
+		System.out.println("expected per item: " + (long) trials * k / n);
+		System.out.println("counts: " + Arrays.toString(counts));
+
+		Reservoir<String> empty = new Reservoir<>(3);
+		try {
+			empty.add(null);
+		}
+		catch(NullPointerException e) {
+			System.out.println("\nadd(null): " + e.getMessage());
+		}
+		System.out.printf("size: %d  seen: %d%n", empty.size(), empty.seen());
+	}
+}
@@ -0,0 +1,166 @@
+package queue;
+
+/**
+ * The indices 0 to n-1 in random order, drawn lazily one step of a Fisher-Yates
+ * shuffle at a time, so the first index comes in O(1) and memory grows only with the
+ * indices taken. The virtual array being shuffled is kept as a sparse map of the slots
+ * that differ from their index; once the map is as large as what is left of the
+ * array it is written out densely instead. Shared by the randomized queue iterators.
+ *
+ * @author Kim Soto, Chris Christoffersen
+ *
+ */
+final class ShuffledIndices {
+	//FIELDS
+	private final RandomSource rng;
+	private int s; //Indices not yet returned.
+	//Index i of the virtual shuffled array holds moved.get(i), or i if absent.
+	private IndexMap moved = new IndexMap();
+	//Once moved holds more than s/8 entries it is no smaller than the remaining
+	//virtual array, which is then written out as int indices.
+	private int[] dense;
+
+	/**
+	 * Shuffles the indices below n.
+	 * @param n number of indices
+	 * @param rng source each step draws from
+	 */
+	ShuffledIndices(int n, RandomSource rng) {
+		s = n;
+		this.rng = rng;
+	}
+
+	/**
+	 * Checks whether any index is left.
+	 * @return True if next may be called.
+	 */
+	boolean hasNext() {
+		return s > 0;
+	}
+
+	/**
+	 * Returns the next index. Callers check hasNext first.
+	 * @return An index not returned before.
+	 */
+	int next() {
+		int index = rng.nextInt(s);
+		if(dense != null) {
+			int picked = dense[index];
+			dense[index] = dense[--s];
+			return picked;
+		}
+
+		int picked = moved.remove(index, index);
+		int last = moved.remove(--s, s);
+		if(index != s) {
+			moved.put(index, last);
+		}
+		if(moved.size() > s / 8) {
+			densify();
+		}
+		return picked;
+	}
+
+	/**
+	 * Replaces the sparse map by the s remaining entries of the virtual array.
+	 */
+	private void densify() {
+		dense = new int[s];
+		for(int i = 0; i < s; i++) {
+			dense[i] = i;
+		}
+		moved.copyInto(dense);
+		moved = null;
+	}
+
+	/**
+	 * Map from index to index in open-addressed int arrays, so entries cost no boxing.
+	 * Keys are stored plus one so that 0 marks an empty slot.
+	 */
+	private static final class IndexMap {
+		private int[] keys = new int[16];
+		private int[] values = new int[16];
+		private int size;
+
+		int size() {
+			return size;
+		}
+
+		void put(int key, int value) {
+			if(2 * (size + 1) > keys.length) {
+				rehash(2 * keys.length);
+			}
+			int mask = keys.length - 1;
+			int i = slot(key, mask);
+			while(keys[i] != 0 && keys[i] != key + 1) {
+				i = (i + 1) & mask;
+			}
+			if(keys[i] == 0) {
+				keys[i] = key + 1;
+				size++;
+			}
+			values[i] = value;
+		}
+
+		/**
+		 * Removes key and returns its value, or absent if it had none.
+		 */
+		int remove(int key, int absent) {
+			int mask = keys.length - 1;
+			int i = slot(key, mask);
+			while(keys[i] != key + 1) {
+				if(keys[i] == 0) {
+					return absent;
+				}
+				i = (i + 1) & mask;
+			}
+			int value = values[i];
+			size--;
+			//shift later entries of the probe run back into the hole
+			for(int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+				int home = slot(keys[j] - 1, mask);
+				if(((j - home) & mask) >= ((j - i) & mask)) {
+					keys[i] = keys[j];
+					values[i] = values[j];
+					i = j;
+				}
+			}
+			keys[i] = 0;
+			return value;
+		}
+
+		/**
+		 * Writes every entry into array[key].
+		 */
+		void copyInto(int[] array) {
+			for(int i = 0; i < keys.length; i++) {
+				if(keys[i] != 0) {
+					array[keys[i] - 1] = values[i];
+				}
+			}
+		}
+
+		private void rehash(int capacity) {
+			int[] oldKeys = keys;
+			int[] oldValues = values;
+			keys = new int[capacity];
+			values = new int[capacity];
+			int mask = capacity - 1;
+			for(int k = 0; k < oldKeys.length; k++) {
+				if(oldKeys[k] != 0) {
+					int i = slot(oldKeys[k] - 1, mask);
+					while(keys[i] != 0) {
+						i = (i + 1) & mask;
+					}
+					keys[i] = oldKeys[k];
+					values[i] = oldValues[k];
+				}
+			}
+		}
+
+		private static int slot(int key, int mask) {
+			int h = key * 0x9E3779B9;
+			return (h ^ h >>> 16) & mask;
+		}
+	}
+}
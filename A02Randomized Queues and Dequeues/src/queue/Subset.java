@@ -6,6 +6,11 @@ import edu.princeton.cs.algs4.StdOut;
 /**
  * Takes an integer k, and reads in a sequence of strings from
  * StdIn and prints out k of them uniformly at random.
+ * <p>
+ * By default every string is held in a RandomizedQueue. With -stream the strings are
+ * sampled by a Reservoir as they are read, so only k are ever held, and -lines does the
+ * same with whole lines instead of whitespace separated strings. Both streaming modes
+ * read through a TokenReader rather than StdIn.
  * @author Kim Soto and Chris Christoffersen
  *
  */
@@ -14,6 +19,16 @@ public class Subset {
 	public static void main(String[] args) {
 		//int from command line.
 		int k = Integer.parseInt(args[0]);
+		String mode = args.length > 1 ? args[1] : "";
+
+		if(mode.equals("-stream") || mode.equals("-lines")) {
+			stream(k, mode.equals("-lines"));
+			return;
+		}
+		else if(!mode.isEmpty()) {
+			throw new IllegalArgumentException("Unknown mode " + mode + ", expected -stream or -lines");
+		}
+
 		RandomizedQueue<String> randomizedQueue = new RandomizedQueue<String>();
 
 		//adds strings from command line into randomizedQueue.
@@ -22,8 +37,38 @@ public class Subset {
 		}
 
 		//prints out strings randomly depending on k.
-		for (int i = 0; i < k; i++) {
-			StdOut.println(randomizedQueue.dequeue());
+		for (String item : randomizedQueue.dequeue(k, new String[k])) {
+			StdOut.println(item);
+		}
+	}
+
+	/**
+	 * Samples k strings or lines from standard input in O(k) memory, reading only the
+	 * ones the reservoir will keep into Strings.
+	 * @param k sample size
+	 * @param lines whether to sample lines instead of strings
+	 */
+	private static void stream(int k, boolean lines) {
+		if(k == 0) {
+			return;
+		}
+		TokenReader reader = new TokenReader(System.in);
+		Reservoir<String> reservoir = new Reservoir<>(k);
+
+		while(true) {
+			long skip = reservoir.skip();
+			if(lines ? !reader.skipLines(skip) : !reader.skipTokens(skip)) {
+				break;
+			}
+			String item = lines ? reader.readLine() : reader.readToken();
+			if(item == null) {
+				break;
+			}
+			reservoir.add(item);
+		}
+
+		for(String item : reservoir.sample(new String[reservoir.size()])) {
+			StdOut.println(item);
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,190 @@
+package queue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads whitespace separated tokens, or whole lines, straight from a byte stream through
+ * a large buffer. Unlike StdIn it does no regular expression matching, and it can skip
+ * tokens or lines without decoding them into Strings. Input is taken to be UTF-8, and
+ * only ASCII control characters and space count as whitespace.
+ *
+ * @author Kim Soto, Chris Christoffersen
+ *
+ */
+final class TokenReader {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	//FIELDS
+	private final InputStream in;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position;
+	private int limit;
+	private byte[] token = new byte[64]; //Bytes of the token being read.
+
+	/**
+	 * Constructs a reader over the given stream.
+	 * @param in
+	 */
+	TokenReader(InputStream in) {
+		this.in = in;
+	}
+
+	/**
+	 * Reads the next token.
+	 * @return The token, or null at the end of input.
+	 */
+	String readToken() {
+		if(!skipWhitespace()) {
+			return null;
+		}
+		int length = 0;
+		while(true) {
+			if(position == limit && !fill()) {
+				break;
+			}
+			byte b = buffer[position];
+			if(isWhitespace(b)) {
+				break;
+			}
+			if(length == token.length) {
+				token = Arrays.copyOf(token, 2 * length);
+			}
+			token[length++] = b;
+			position++;
+		}
+		return new String(token, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Passes over up to n tokens without decoding them.
+	 * @param n number of tokens
+	 * @return True if n tokens were skipped, false if input ended first.
+	 */
+	boolean skipTokens(long n) {
+		for(long i = 0; i < n; i++) {
+			if(!skipWhitespace()) {
+				return false;
+			}
+			while(true) {
+				if(position == limit && !fill()) {
+					break;
+				}
+				if(isWhitespace(buffer[position])) {
+					break;
+				}
+				position++;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the next line, without its line terminator. A trailing carriage return is
+	 * dropped as well.
+	 * @return The line, or null at the end of input.
+	 */
+	String readLine() {
+		if(position == limit && !fill()) {
+			return null;
+		}
+		int length = 0;
+		while(true) {
+			if(position == limit && !fill()) {
+				break;
+			}
+			byte b = buffer[position++];
+			if(b == '\n') {
+				break;
+			}
+			if(length == token.length) {
+				token = Arrays.copyOf(token, 2 * length);
+			}
+			token[length++] = b;
+		}
+		if(length > 0 && token[length - 1] == '\r') {
+			length--;
+		}
+		return new String(token, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Passes over up to n lines without decoding them.
+	 * @param n number of lines
+	 * @return True if n lines were skipped, false if input ended first.
+	 */
+	boolean skipLines(long n) {
+		for(long i = 0; i < n; i++) {
+			if(position == limit && !fill()) {
+				return false;
+			}
+			while(true) {
+				int newline = indexOfNewline();
+				if(newline >= 0) {
+					position = newline + 1;
+					break;
+				}
+				position = limit;
+				if(!fill()) {
+					break;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Moves past whitespace to the start of the next token.
+	 * @return True if a token follows, false at the end of input.
+	 */
+	private boolean skipWhitespace() {
+		while(true) {
+			if(position == limit && !fill()) {
+				return false;
+			}
+			if(!isWhitespace(buffer[position])) {
+				return true;
+			}
+			position++;
+		}
+	}
+
+	/**
+	 * Index of the next newline in the buffered bytes.
+	 * @return Buffer index, or -1 if none is buffered.
+	 */
+	private int indexOfNewline() {
+		for(int i = position; i < limit; i++) {
+			if(buffer[i] == '\n') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Refills the buffer from the stream.
+	 * @return True if bytes were read, false at the end of input.
+	 */
+	private boolean fill() {
+		try {
+			int read;
+			do {
+				read = in.read(buffer, 0, buffer.length);
+			} while(read == 0);
+			position = 0;
+			limit = Math.max(read, 0);
+			return read > 0;
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b >= 0 && b <= ' ';
+	}
+}
@@ -0,0 +1,306 @@
+package queue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * A RandomizedQueue whose items are sampled and removed with probability proportional
+ * to a weight given when they are enqueued. Weights are summed in a Fenwick tree laid
+ * over the item array, so the item under a random point of the total weight is found in
+ * O(log n), and enqueue, sample and dequeue are all O(log n). Removal moves the last
+ * item into the hole, as RandomizedQueue does.
+ * <p>
+ * Updating the tree in floating point leaves rounding error in proportion to the
+ * weight it has held, so light items next to a heavy one are lost while the heavy one
+ * is present. Once removals bring the total below 2^-20 of the weight added since the
+ * last rebuild, the tree is rebuilt from the exact weights in O(n). That restores the
+ * light items, and keeps the error under about 2^-28 of the total. Only a removal
+ * that shrinks the total by that factor pays for a rebuild.
+ *
+ * @author Kim Soto, Chris Christoffersen
+ *
+ * @param <Item>
+ */
+public class WeightedRandomizedQueue<Item> implements Iterable<Item> {
+	//FIELDS
+	private Item[] itemArray;
+	private double[] weights;
+	private double[] tree; //Fenwick tree over weights, 1-indexed.
+	private double scale; //Weight added to the tree since it was built, bounding its error.
+	private int size;
+	private final RandomSource rng;
+
+	/**
+	 * Constructs an empty weighted randomized queue drawing from a Xoroshiro128PlusPlus
+	 * seeded from StdRandom, so StdRandom.setSeed still makes runs reproducible.
+	 */
+	public WeightedRandomizedQueue() {
+		this(new Xoroshiro128PlusPlus((long) (StdRandom.uniform() * 0x1.0p53)));
+	}
+
+	/**
+	 * Constructs an empty weighted randomized queue drawing from the given source. The
+	 * queue and its iterators advance it, so it should not be shared between threads.
+	 * @param rng
+	 */
+	@SuppressWarnings("unchecked")
+	public WeightedRandomizedQueue(RandomSource rng) {
+		if(rng == null) {
+			throw new NullPointerException("Random source is null!");
+		}
+		this.rng = rng;
+		itemArray = (Item[]) new Object[2];
+		weights = new double[2];
+		tree = new double[3];
+	}
+
+	/**
+	 * Checks if the queue is empty.
+	 * @return True if queue is empty, false if it contains elements.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the number of items on the queue.
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the sum of the weights of the items on the queue.
+	 * @return
+	 */
+	public double totalWeight() {
+		return prefix(size);
+	}
+
+	/**
+	 * Adds item into queue.
+	 * @param item
+	 * @param weight positive and finite
+	 */
+	public void enqueue(Item item, double weight) {
+		//If client attempts to add a null item.
+		if(item == null) {
+			throw new NullPointerException("Item is null!");
+		}
+		if(!(weight > 0) || Double.isInfinite(weight)) {
+			throw new IllegalArgumentException("Weight must be positive and finite: " + weight);
+		}
+
+		//double size of array
+		if(size == itemArray.length) {
+			resize(2 * itemArray.length);
+		}
+		itemArray[size] = item;
+		weights[size] = weight;
+		add(size, weight);
+		scale += weight;
+		size++;
+	}
+
+	/**
+	 * Deletes and returns a random item, chosen with probability proportional to its weight.
+	 * @return
+	 */
+	public Item dequeue() {
+		if(isEmpty()) {
+			throw new NoSuchElementException();
+		}
+
+		int n = pick();
+		Item random = itemArray[n];
+		int last = size - 1;
+
+		//move the last item into the hole, then drop the last slot
+		if(n != last) {
+			add(n, weights[last] - weights[n]);
+			itemArray[n] = itemArray[last];
+			weights[n] = weights[last];
+		}
+		add(last, -weights[last]);
+		itemArray[last] = null; //prevent loitering
+		weights[last] = 0;
+		size--;
+
+		//half size of array when 1/4 full
+		if(size >= 1 && size == itemArray.length / 4) {
+			resize(itemArray.length / 2);
+		}
+		//rebuild once the error left by heavier items could swamp what remains
+		else if(totalWeight() < scale * 0x1.0p-20) {
+			rebuild();
+		}
+
+		return random;
+	}
+
+	/**
+	 * Returns a random item, chosen with probability proportional to its weight, but
+	 * does not delete it.
+	 * @return
+	 */
+	public Item sample() {
+		if(isEmpty()) {
+			throw new NoSuchElementException();
+		}
+
+		return itemArray[pick()];
+	}
+
+	/**
+	 * Returns an independent iterator over items in weighted random order, as
+	 * repeated dequeues would return them.
+	 */
+	public Iterator<Item> iterator() {
+		return new WeightedRandomizedQueueIterator();
+	}
+
+	private class WeightedRandomizedQueueIterator implements Iterator<Item> {
+		private final WeightedRandomizedQueue<Item> queue = new WeightedRandomizedQueue<>(rng);
+
+		public WeightedRandomizedQueueIterator() {
+			queue.itemArray = Arrays.copyOf(itemArray, itemArray.length);
+			queue.weights = Arrays.copyOf(weights, weights.length);
+			queue.tree = Arrays.copyOf(tree, tree.length);
+			queue.scale = scale;
+			queue.size = size;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !queue.isEmpty();
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Item next() {
+			return queue.dequeue();
+		}
+	}
+
+	/**
+	 * Index of the item under a uniform random point of the total weight: the smallest
+	 * index whose prefix sum exceeds the point, found by descending the Fenwick tree.
+	 */
+	private int pick() {
+		double point = rng.nextDouble() * totalWeight();
+		int index = 0;
+		for(int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+			int next = index + step;
+			if(next <= size && tree[next] <= point) {
+				index = next;
+				point -= tree[next];
+			}
+		}
+		//Rounding can carry the point past the last prefix sum.
+		return Math.min(index, size - 1);
+	}
+
+	/**
+	 * Adds delta to the weight at index i in the Fenwick tree.
+	 */
+	private void add(int i, double delta) {
+		for(int j = i + 1; j < tree.length; j += j & -j) {
+			tree[j] += delta;
+		}
+	}
+
+	/**
+	 * Sum of the weights at indices below i.
+	 */
+	private double prefix(int i) {
+		double sum = 0;
+		for(int j = i; j > 0; j -= j & -j) {
+			sum += tree[j];
+		}
+		return sum;
+	}
+
+	/**
+	 * Resize arrays to avoid thrashing. The tree is rebuilt from the weights in O(n),
+	 * which also clears rounding error left by earlier updates.
+	 * @param n
+	 */
+	private void resize(int n) {
+		itemArray = Arrays.copyOf(itemArray, n);
+		weights = Arrays.copyOf(weights, n);
+		rebuild();
+	}
+
+	/**
+	 * Builds the tree afresh from the weights in O(n).
+	 */
+	private void rebuild() {
+		int n = itemArray.length;
+		tree = new double[n + 1];
+		for(int j = 1; j <= size; j++) {
+			tree[j] += weights[j - 1];
+			int parent = j + (j & -j);
+			if(parent <= n) {
+				tree[parent] += tree[j];
+			}
+		}
+		scale = totalWeight();
+	}
+
+	/**
+	 * Unit testing.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		WeightedRandomizedQueue<String> test = new WeightedRandomizedQueue<>();
+
+		test.enqueue("a", 1);
+		test.enqueue("b", 2);
+		test.enqueue("c", 3);
+		test.enqueue("d", 4);
+
+		//iterator testing
+		System.out.println("Queue Iterator: ");
+		for(String el: test) {
+			System.out.print(el + " ");
+		}
+		System.out.println();
+
+		//sample frequencies should be near 1:2:3:4
+		int[] counts = new int[4];
+		for(int i = 0; i < 100_000; i++) {
+			counts[test.sample().charAt(0) - 'a']++;
+		}
+		System.out.println("\nsample counts a-d: " + Arrays.toString(counts));
+
+		//testing other methods
+		System.out.printf("\nis Empty: %b  size: %d  total weight: %.1f%n", test.isEmpty(), test.size(),
+				test.totalWeight());
+		System.out.println("\ntesting dequeue: " + test.dequeue());
+		System.out.printf("size: %d  total weight: %.1f%n", test.size(), test.totalWeight());
+
+		//light items beside a heavy one must come back once it is gone
+		WeightedRandomizedQueue<Integer> mixed = new WeightedRandomizedQueue<>(new Xoroshiro128PlusPlus(2420));
+		for(int i = 0; i < 7; i++) {
+			mixed.enqueue(i, 1);
+		}
+		mixed.enqueue(-1, 1e20);
+		for(int i = 7; i < 14; i++) {
+			mixed.enqueue(i, 1);
+		}
+		System.out.println("\nheavy item dequeued: " + mixed.dequeue());
+		int[] light = new int[14];
+		for(int i = 0; i < 140_000; i++) {
+			light[mixed.sample()]++;
+		}
+		System.out.printf("total weight: %.1f (expected 14.0)%n", mixed.totalWeight());
+		System.out.println("sample counts 0-13: " + Arrays.toString(light));
+	}
+}
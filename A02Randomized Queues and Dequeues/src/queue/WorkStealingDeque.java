@@ -0,0 +1,194 @@
+package queue;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free deque for work-stealing schedulers, after Chase and Lev's dynamic
+ * circular work-stealing deque. One owner thread adds and removes items at the end;
+ * any number of other threads steal from the front. The owner never takes a lock and
+ * only competes with thieves over the very last item; thieves compete with each other
+ * through a single compare-and-set on the front index.
+ * <p>
+ * Only the owner may call addLast and removeLast. removeFirst and steal are safe from
+ * any thread. There is no addFirst: the front belongs to the thieves. The buffer is a
+ * power-of-two circular array that doubles when full and is never shrunk; a stolen
+ * slot keeps its reference until the owner writes over it.
+ * 
+ * @author Kim Soto, Chris Christoffersen
+ *
+ * @param <Item>
+ */
+public class WorkStealingDeque<Item> {
+	private static final int INITIAL_CAPACITY = 32;
+
+	//FIELDS
+	private final AtomicLong top = new AtomicLong(); //Index of the first item, advanced by thieves.
+	private volatile long bottom; //Index after the last item, written only by the owner.
+	private volatile AtomicReferenceArray<Item> items = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+
+	/**
+	 * Checks if the deque looks empty. Other threads may change that at any moment.
+	 * @return True if no items were present when checked.
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Returns the number of items, as a snapshot that may already be stale.
+	 * @return int value of size.
+	 */
+	public int size() {
+		long size = bottom - top.get();
+		return size <= 0 ? 0 : (int) Math.min(size, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Inserts an item at the end. Owner thread only.
+	 * @param item
+	 */
+	public void addLast(Item item) {
+		//If client attempts to add a null item.
+		if(item == null) {
+			throw new NullPointerException("Item is null!");
+		}
+		long b = bottom;
+		long t = top.get();
+		AtomicReferenceArray<Item> a = items;
+		if(b - t >= a.length()) {
+			a = grow(a, t, b);
+		}
+		a.set((int) b & (a.length() - 1), item);
+		//The volatile write publishes the item to thieves.
+		bottom = b + 1;
+	}
+
+	/**
+	 * Deletes and returns the item at the end. Owner thread only.
+	 * @return Last item in queue.
+	 */
+	public Item removeLast() {
+		long b = bottom - 1;
+		AtomicReferenceArray<Item> a = items;
+		//Claim the slot before looking at top, so a thief reading bottom after this
+		//write cannot take it too.
+		bottom = b;
+		long t = top.get();
+		if(t > b) {
+			bottom = b + 1;
+			throw new NoSuchElementException("Cannot remove further, deque is empty!");
+		}
+		int slot = (int) b & (a.length() - 1);
+		Item item = a.get(slot);
+		if(t == b) {
+			//Last item: race the thieves for it through top.
+			boolean won = top.compareAndSet(t, t + 1);
+			bottom = b + 1;
+			if(!won) {
+				throw new NoSuchElementException("Cannot remove further, deque is empty!");
+			}
+			return item;
+		}
+		a.set(slot, null); //prevent loitering
+		return item;
+	}
+
+	/**
+	 * Deletes and returns the item at the front, retrying when another thief gets there
+	 * first. Any thread.
+	 * @return First item in queue.
+	 */
+	public Item removeFirst() {
+		while(true) {
+			long t = top.get();
+			long b = bottom;
+			if(t >= b) {
+				throw new NoSuchElementException("Cannot remove further, deque is empty!");
+			}
+			AtomicReferenceArray<Item> a = items;
+			Item item = a.get((int) t & (a.length() - 1));
+			if(top.compareAndSet(t, t + 1)) {
+				return item;
+			}
+		}
+	}
+
+	/**
+	 * Tries once to take the item at the front. Any thread. Schedulers should prefer this
+	 * over removeFirst: on contention it is usually better to try another victim.
+	 * @return First item in queue, or null if the deque was empty or another thread won.
+	 */
+	public Item steal() {
+		long t = top.get();
+		long b = bottom;
+		if(t >= b) {
+			return null;
+		}
+		AtomicReferenceArray<Item> a = items;
+		Item item = a.get((int) t & (a.length() - 1));
+		return top.compareAndSet(t, t + 1) ? item : null;
+	}
+
+	/**
+	 * Copies the live range into an array twice the size and publishes it. Thieves still
+	 * reading the old array see the same items there.
+	 */
+	private AtomicReferenceArray<Item> grow(AtomicReferenceArray<Item> a, long t, long b) {
+		AtomicReferenceArray<Item> bigger = new AtomicReferenceArray<>(2 * a.length());
+		for(long k = t; k < b; k++) {
+			bigger.set((int) k & (bigger.length() - 1), a.get((int) k & (a.length() - 1)));
+		}
+		items = bigger;
+		return bigger;
+	}
+
+	/**
+	 * Unit testing: the owner pushes and pops while thieves steal, then checks that every
+	 * item came out exactly once.
+	 * @param args
+	 * @throws InterruptedException
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int n = 1_000_000;
+		int thieves = 3;
+		WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+		AtomicIntegerArray seen = new AtomicIntegerArray(n);
+		AtomicBoolean done = new AtomicBoolean();
+
+		Thread[] workers = new Thread[thieves];
+		for(int w = 0; w < thieves; w++) {
+			workers[w] = new Thread(() -> {
+				while(!done.get() || !deque.isEmpty()) {
+					Integer item = deque.steal();
+					if(item != null) seen.incrementAndGet(item);
+				}
+			});
+			workers[w].start();
+		}
+		for(int k = 0; k < n; k++) {
+			deque.addLast(k);
+			if(k % 3 == 0) {
+				try {
+					seen.incrementAndGet(deque.removeLast());
+				} catch (NoSuchElementException e) {
+					//Thieves emptied it first.
+				}
+			}
+		}
+		done.set(true);
+		for(Thread worker : workers) {
+			worker.join();
+		}
+		int missing = 0;
+		int duplicated = 0;
+		for(int k = 0; k < n; k++) {
+			if(seen.get(k) == 0) missing++;
+			if(seen.get(k) > 1) duplicated++;
+		}
+		System.out.printf("items: %d  missing: %d  duplicated: %d%n", n, missing, duplicated);
+	}
+}
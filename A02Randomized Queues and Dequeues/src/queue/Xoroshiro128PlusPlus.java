@@ -0,0 +1,53 @@
+package queue;
+
+/**
+ * Blackman and Vigna's xoroshiro128++ generator: 128 bits of state, a period of
+ * 2^128 - 1 and a handful of shifts, rotates and adds per number. The state is seeded
+ * through SplitMix64, which also derives the state of split off generators, so nearby
+ * seeds still give unrelated streams.
+ *
+ * @author Kim Soto, Chris Christoffersen
+ *
+ */
+public final class Xoroshiro128PlusPlus implements RandomSource {
+	private long s0;
+	private long s1;
+
+	/**
+	 * Creates a generator whose stream depends only on seed.
+	 * @param seed Any long
+	 */
+	public Xoroshiro128PlusPlus(long seed) {
+		s0 = mix(seed += 0x9E3779B97F4A7C15L);
+		s1 = mix(seed + 0x9E3779B97F4A7C15L);
+		//The all-zero state never leaves zero.
+		if((s0 | s1) == 0) {
+			s1 = 0x9E3779B97F4A7C15L;
+		}
+	}
+
+	@Override
+	public long nextLong() {
+		long a = s0;
+		long b = s1;
+		long result = Long.rotateLeft(a + b, 17) + a;
+		b ^= a;
+		s0 = Long.rotateLeft(a, 49) ^ b ^ (b << 21);
+		s1 = Long.rotateLeft(b, 28);
+		return result;
+	}
+
+	@Override
+	public Xoroshiro128PlusPlus split() {
+		return new Xoroshiro128PlusPlus(nextLong() ^ mix(nextLong()));
+	}
+
+	/**
+	 * SplitMix64's finaliser: a bijection that spreads every input bit over the output.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}